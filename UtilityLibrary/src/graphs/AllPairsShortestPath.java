@@ -0,0 +1,402 @@
+package graphs;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class implements algorithms that compute shortest paths between all pairs of vertices on large
+ * graphs. Distances are stored in a flat n x n matrix (a single long array in row-major order) where
+ * vertex v (numbered from 1 to n) corresponds to row and column v-1. Unreachable pairs have distance
+ * Long.MAX_VALUE, as in the ShortestPath class.
+ *
+ * The blocked Floyd-Warshall algorithm computes the same distances as ShortestPath.floydWarshall, in
+ * O(n^3) time, but it splits the matrix in square tiles that fit in the processor cache. For every
+ * diagonal tile k, it first updates that tile, then the tiles of row k and column k (which only depend
+ * on the diagonal tile), and finally all the remaining tiles (which only depend on the tiles of row k
+ * and column k). The tiles of the last two phases are independent, so they are updated in parallel on
+ * a ForkJoinPool. Optionally, the algorithm keeps a "next hop" matrix, which enables the reconstruction
+ * of the shortest paths.
+ *
+ * Johnson's algorithm is better suited for sparse graphs. A Bellman-Ford search (in its queue-based
+ * form, SPFA) from a virtual vertex joined to all the others computes a "potential" h(v) for every
+ * vertex, or detects a negative cycle. The weight of every edge (u,v) is then replaced by
+ * w(u,v) + h(u) - h(v), which is never negative and preserves the shortest paths, so the distances from
+ * every vertex are computed with Dijkstra's algorithm, in O(n m log n) time. The searches from
+ * different sources are independent, so they are run in parallel on a ForkJoinPool. Since the n x n
+ * matrix does not fit in memory for large graphs, the distances from every source (a "row") can be
+ * delivered to a RowConsumer as soon as they are computed, instead of being stored.
+ *
+ * @author Mario Cervera
+ */
+public class AllPairsShortestPath {
+
+	private static final int BLOCK = 64; // Tile size (BLOCK x BLOCK longs = 32 KB)
+
+	/*
+	 * Internal representation of an infinite distance. It is small enough so that the sum of two
+	 * distances never overflows, which removes the sentinel checks from the inner loop.
+	 */
+	private static final long INF = Long.MAX_VALUE / 2;
+
+	/*
+	 * The receiver of the distances computed by Johnson's algorithm. The "distance" array has n+1
+	 * positions: distance[v] is the distance from the source to vertex v (Long.MAX_VALUE if it is not
+	 * reachable). The array is reused for the next sources once the method returns, so it must be
+	 * copied if it is needed later. The method is invoked concurrently from the threads of the pool.
+	 */
+	public interface RowConsumer {
+		void accept(int source, long[] distance);
+	}
+
+	/*
+	 * This method returns the flat distance matrix of a graph: 0 in the diagonal, the weight of the
+	 * lightest edge (x,y) for each pair of adjacent vertices, and Long.MAX_VALUE elsewhere.
+	 */
+	public static long[] toMatrix(Graph graph) {
+
+		int n = graph.getNumVertices();
+		EdgeNode[] edges = graph.getEdges();
+
+		if ((long) n * n > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many vertices for a flat matrix: " + n);
+
+		long[] matrix = new long[n * n];
+
+		for (int i = 0; i < n * n; i++) {
+			matrix[i] = Long.MAX_VALUE;
+		}
+
+		for (int x = 1; x <= n; x++) {
+			matrix[(x - 1) * n + (x - 1)] = 0;
+		}
+
+		for (int x = 1; x <= n; x++) {
+			for (EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				int pos = (x - 1) * n + (node.getY() - 1);
+				matrix[pos] = Math.min(matrix[pos], node.getWeight());
+			}
+		}
+
+		return matrix;
+	}
+
+	/*
+	 * Blocked Floyd-Warshall's algorithm on the common ForkJoinPool
+	 */
+	public static void floydWarshall(long[] matrix, int n, int[] next) {
+
+		floydWarshall(matrix, n, next, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Blocked Floyd-Warshall's algorithm. It updates the input matrix (n x n, row-major) with the
+	 * distances between all pairs of vertices. If "next" is not null (it must also have n x n
+	 * positions), it is filled with the vertex that follows i in a shortest path from i to j
+	 * (-1 if j is not reachable from i). The graph must not have negative cycles.
+	 */
+	public static void floydWarshall(final long[] matrix, final int n, final int[] next, ForkJoinPool pool) {
+
+		if ((long) n * n > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many vertices for a flat matrix: " + n);
+
+		if (matrix.length < n * n || (next != null && next.length < n * n))
+			throw new IllegalArgumentException("Matrix smaller than " + n + "x" + n);
+
+		// Replace the sentinels by the internal infinity and initialize the next hops
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+
+				int pos = i * n + j;
+
+				if (matrix[pos] >= INF) matrix[pos] = INF;
+
+				if (next != null) next[pos] = (matrix[pos] < INF || i == j) ? j + 1 : -1;
+			}
+		}
+
+		// Process the tiles in three phases for every diagonal tile
+
+		final int numBlocks = (n + BLOCK - 1) / BLOCK;
+
+		for (int kb = 0; kb < numBlocks; kb++) {
+
+			final int k = kb;
+
+			// Phase 1: diagonal tile
+
+			updateTile(matrix, next, n, k, k, k);
+
+			// Phase 2: tiles in row k and column k
+
+			ParallelFor.run(pool, 0, 2 * numBlocks, 1, (from, to) -> {
+				for (int t = from; t < to; t++) {
+					if (t < numBlocks) {
+						if (t != k) updateTile(matrix, next, n, k, t, k);
+					}
+					else if (t - numBlocks != k) {
+						updateTile(matrix, next, n, t - numBlocks, k, k);
+					}
+				}
+			});
+
+			// Phase 3: remaining tiles
+
+			ParallelFor.run(pool, 0, numBlocks * numBlocks, 1, (from, to) -> {
+				for (int t = from; t < to; t++) {
+					int ib = t / numBlocks;
+					int jb = t % numBlocks;
+					if (ib != k && jb != k) updateTile(matrix, next, n, ib, jb, k);
+				}
+			});
+		}
+
+		// Restore the sentinels. With negative edges, an infinite distance can be lowered by the
+		// sum of a few negative weights, so any distance close to the internal infinity is infinite.
+
+		for (int pos = 0; pos < n * n; pos++) {
+			if (matrix[pos] >= INF / 2) {
+				matrix[pos] = Long.MAX_VALUE;
+				if (next != null) next[pos] = -1;
+			}
+		}
+	}
+
+	/*
+	 * This method relaxes the tile (ib,jb) through the intermediate vertices of tile kb
+	 */
+	private static void updateTile(long[] d, int[] next, int n, int ib, int jb, int kb) {
+
+		int iEnd = Math.min((ib + 1) * BLOCK, n);
+		int jStart = jb * BLOCK;
+		int jEnd = Math.min((jb + 1) * BLOCK, n);
+		int kEnd = Math.min((kb + 1) * BLOCK, n);
+
+		for (int k = kb * BLOCK; k < kEnd; k++) {
+
+			int rowK = k * n;
+
+			for (int i = ib * BLOCK; i < iEnd; i++) {
+
+				int rowI = i * n;
+				long dik = d[rowI + k];
+
+				if (dik >= INF / 2) continue; // No path from i to k
+
+				if (next == null) {
+					for (int j = jStart; j < jEnd; j++) {
+						long newDistance = dik + d[rowK + j];
+						if (newDistance < d[rowI + j]) d[rowI + j] = newDistance;
+					}
+				}
+				else {
+					int nik = next[rowI + k];
+					for (int j = jStart; j < jEnd; j++) {
+						long newDistance = dik + d[rowK + j];
+						if (newDistance < d[rowI + j]) {
+							d[rowI + j] = newDistance;
+							next[rowI + j] = nik;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Johnson's algorithm on a graph represented by means of adjacency lists. It returns the flat
+	 * distance matrix (see toMatrix).
+	 */
+	public static long[] johnson(Graph graph) {
+
+		return johnson(new CompactGraph(graph));
+	}
+
+	/*
+	 * Johnson's algorithm on a graph represented in CSR format, on the common ForkJoinPool. It
+	 * returns the flat distance matrix (see toMatrix).
+	 */
+	public static long[] johnson(CompactGraph graph) {
+
+		final int n = graph.getNumVertices();
+
+		if ((long) n * n > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many vertices for a flat matrix: " + n);
+
+		final long[] matrix = new long[n * n];
+
+		johnson(graph, (source, distance) -> System.arraycopy(distance, 1, matrix, (source - 1) * n, n),
+				ForkJoinPool.commonPool());
+
+		return matrix;
+	}
+
+	/*
+	 * Johnson's algorithm on a graph represented by means of adjacency lists, on the common
+	 * ForkJoinPool. The distances from every source are delivered to the consumer.
+	 */
+	public static void johnson(Graph graph, RowConsumer consumer) {
+
+		johnson(new CompactGraph(graph), consumer, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Johnson's algorithm on a graph represented in CSR format. The distances from every source are
+	 * delivered to the consumer, in no particular order. The weights may be negative, but if the
+	 * graph has a negative cycle, an IllegalArgumentException is thrown (before any row is delivered).
+	 */
+	public static void johnson(CompactGraph graph, final RowConsumer consumer, ForkJoinPool pool) {
+
+		// Initialize variables
+
+		final int n = graph.getNumVertices();
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+		final int[] weights = graph.getWeights();
+		final long[] potential = potentials(graph);
+
+		// Reweight the edges
+
+		final long[] reduced = new long[targets.length];
+
+		for (int x = 1; x <= n; x++) {
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+				reduced[e] = weights[e] + potential[x] - potential[targets[e]];
+			}
+		}
+
+		// Dijkstra's algorithm from every source. Each task reuses its arrays for all its sources.
+
+		int grain = Math.max(1, n / (pool.getParallelism() * 4));
+
+		ParallelFor.run(pool, 1, n + 1, grain, (from, to) -> {
+
+			long[] distance = new long[n + 1];
+			IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+			for (int s = from; s < to; s++) {
+
+				for (int v = 0; v <= n; v++) {
+					distance[v] = Long.MAX_VALUE;
+				}
+
+				distance[s] = 0;
+				heap.insert(s, 0);
+
+				while (!heap.isEmpty()) {
+
+					int node = heap.extractMin();
+
+					for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+
+						int y = targets[e];
+						long newDistance = distance[node] + reduced[e];
+
+						if (newDistance < distance[y]) {
+
+							if (heap.contains(y)) heap.decreaseKey(y, newDistance);
+							else heap.insert(y, newDistance);
+
+							distance[y] = newDistance;
+						}
+					}
+				}
+
+				// Undo the reweighting
+
+				for (int v = 1; v <= n; v++) {
+					if (distance[v] != Long.MAX_VALUE) {
+						distance[v] += potential[v] - potential[s];
+					}
+				}
+
+				consumer.accept(s, distance);
+			}
+		});
+	}
+
+	/*
+	 * This method computes the potentials of Johnson's algorithm: the distances from a virtual vertex
+	 * with an edge of weight 0 to every vertex (so they are never positive). It implements the
+	 * queue-based Bellman-Ford algorithm (SPFA): only the vertices whose distance has changed are
+	 * processed again. A shortest path has at most n-1 edges, so a longer one reveals a negative cycle.
+	 */
+	private static long[] potentials(CompactGraph graph) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		long[] potential = new long[n + 1];
+		int[] length = new int[n + 1]; // Number of edges of the path to each vertex
+		boolean[] inQueue = new boolean[n + 1];
+		int[] queue = new int[n + 1]; // Circular queue (it never holds more than n vertices)
+		int head = 0, size = 0;
+
+		// The virtual vertex reaches every vertex with distance 0
+
+		for (int v = 1; v <= n; v++) {
+			queue[size++] = v;
+			inQueue[v] = true;
+		}
+
+		while (size > 0) {
+
+			int x = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			inQueue[x] = false;
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+				long newPotential = potential[x] + weights[e];
+
+				if (newPotential < potential[y]) {
+
+					potential[y] = newPotential;
+					length[y] = length[x] + 1;
+
+					if (length[y] >= n)
+						throw new IllegalArgumentException("The graph has a negative cycle");
+
+					if (!inQueue[y]) {
+						queue[(head + size) % queue.length] = y;
+						size++;
+						inQueue[y] = true;
+					}
+				}
+			}
+		}
+
+		return potential;
+	}
+
+	/*
+	 * This method returns the shortest path from vertex i to vertex j (both numbered from 1 to n)
+	 * using the "next hop" matrix computed by the Floyd-Warshall's algorithm. It returns null if j
+	 * is not reachable from i.
+	 */
+	public static int[] getPath(int[] next, int n, int i, int j) {
+
+		if (next[(i - 1) * n + (j - 1)] == -1) return null;
+
+		int length = 1;
+
+		for (int v = i; v != j; v = next[(v - 1) * n + (j - 1)]) {
+			length++;
+		}
+
+		int[] path = new int[length];
+		int pos = 0;
+
+		for (int v = i; v != j; v = next[(v - 1) * n + (j - 1)]) {
+			path[pos++] = v;
+		}
+		path[pos] = j;
+
+		return path;
+	}
+}
@@ -11,6 +11,9 @@ import java.util.Deque;
  * During the graph traversal, vertices go through three states: undiscovered, discovered, and processed.
  * The algorithm uses a "parent" array that enables the reconstruction of the Breadth-First Search tree.
  * 
+ * The methods that receive a TraversalVisitor are reentrant: they run on a per-thread TraversalContext
+ * instead of the static variables of this class.
+ * 
  * 
  * @author Mario Cervera
  *
@@ -21,6 +24,13 @@ public class BreadthFirstSearch {
 	private static boolean[] processed;
 	private static int[] parent;
 	
+	private static final ThreadLocal<TraversalContext> contexts = new ThreadLocal<TraversalContext>() {
+		@Override
+		protected TraversalContext initialValue() {
+			return new TraversalContext(0);
+		}
+	};
+	
 	/*
 	 * This method traverses a graph from a given starting vertex using Breadth-First Search.
 	 * A queue is used to temporarily store discovered (but not yet processed) vertices. This
@@ -62,12 +72,121 @@ public class BreadthFirstSearch {
 		}
 	}
 	
+	/*
+	 * Breadth-First Search on a graph represented in CSR format. The queue is stored in a primitive
+	 * array: every vertex enters the queue at most once, so N positions are enough.
+	 */
+	public static void bfs(CompactGraph graph, int start) {
+
+		initializeSearch(graph.getNumVertices());
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+
+		int[] queue = new int[graph.getNumVertices()];
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discovered[start] = true;
+
+		while (head < tail) {
+
+			int vertex = queue[head++];
+			processVertexBefore(vertex);
+			processed[vertex] = true;
+
+			for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) { // Iterate adjacent vertices
+
+				int y = targets[e];
+
+				if (!processed[y])
+					processEdge(vertex, y);
+
+				if (!discovered[y]) {
+					discovered[y] = true;
+					parent[y] = vertex;
+					queue[tail++] = y;
+				}
+			}
+			processVertexAfter(vertex);
+		}
+	}
+	
+	/*
+	 * Breadth-First Search with the actions supplied by the caller. Unlike the methods above, this
+	 * method can be invoked from many threads at once: each thread uses its own TraversalContext,
+	 * which is reused across invocations, so repeated searches do not allocate any memory. The
+	 * context of the calling thread (returned by this method) holds the result of the search until
+	 * the next invocation from the same thread. The visitor receives that context too, so it can
+	 * stop the search with finish().
+	 */
+	public static TraversalContext bfs(Graph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
+	/*
+	 * Same as the method above, on a graph represented in CSR format
+	 */
+	public static TraversalContext bfs(CompactGraph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
+	/*
+	 * Same as the method above, on a graph stored outside of the Java heap
+	 */
+	public static TraversalContext bfs(OffHeapGraph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
+	/*
+	 * Same as the method above, on a graph mapped from a file
+	 */
+	public static TraversalContext bfs(MappedGraph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
+	/*
+	 * Same as the method above, on a compressed graph
+	 */
+	public static TraversalContext bfs(CompressedGraph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
+	/*
+	 * Same as the method above, on a dynamic graph
+	 */
+	public static TraversalContext bfs(DynamicGraph graph, int start, TraversalVisitor visitor) {
+
+		TraversalContext context = contexts.get();
+		context.bfs(graph, start, visitor);
+		return context;
+	}
+	
 	/*
 	 * This method initializes the variables that are used in the Breadth-First Search algorithm
 	 */
 	private static void initializeSearch(Graph graph) {
 
-		int N = graph.getNumVertices();
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	private static void initializeSearch(int N) {
 
 		discovered = new boolean[N+1]; // Vertices are numbered from 1 to N
 		processed = new boolean[N+1];
@@ -0,0 +1,227 @@
+package graphs;
+
+import java.util.List;
+
+/**
+ * An immutable graph represented in Compressed Sparse Row (CSR) format. The adjacency lists of all
+ * vertices are stored back to back in two primitive arrays ("targets" and "weights"), and the array
+ * "offsets" indicates where the adjacency list of each vertex starts. The edges (x,y) of a vertex x
+ * are therefore found in positions offsets[x] to offsets[x+1]-1 of the targets and weights arrays.
+ *
+ * Compared to the adjacency lists of the Graph class, this representation does not allocate one object
+ * per edge, and the neighbors of a vertex are contiguous in memory. It is the preferred representation
+ * for large graphs that do not change once they are built.
+ *
+ * @author Mario Cervera
+ */
+public class CompactGraph {
+
+	private int numVertices; // Number of vertices of the graph
+	private int[] offsets; // Start of the adjacency list of each vertex (plus one final sentinel)
+	private int[] targets; // Adjacent vertex of each edge
+	private int[] weights; // Weight of each edge
+
+	/*
+	 * Constructor that builds the CSR representation of a graph represented by means of adjacency
+	 * lists. The edges of each vertex keep the order of its adjacency list.
+	 */
+	public CompactGraph(Graph graph) {
+
+		int n = graph.getNumVertices();
+		EdgeNode[] edges = graph.getEdges();
+
+		this.numVertices = n;
+		this.offsets = new int[n + 2]; // Vertices are numbered from 1 to N
+
+		for (int x = 1; x <= n; x++) {
+			int degree = 0;
+			for (EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				degree++;
+			}
+			offsets[x + 1] = offsets[x] + degree;
+		}
+
+		this.targets = new int[offsets[n + 1]];
+		this.weights = new int[offsets[n + 1]];
+
+		for (int x = 1; x <= n; x++) {
+			int pos = offsets[x];
+			for (EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				targets[pos] = node.getY();
+				weights[pos] = node.getWeight();
+				pos++;
+			}
+		}
+	}
+
+	/*
+	 * Constructor that builds a graph from a list of edges. If the graph is undirected, every edge
+	 * (x,y) is also inserted as (y,x).
+	 */
+	public CompactGraph(int numVertices, List<Edge> edges, boolean undirected) {
+
+		int m = edges.size();
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] weight = new int[m];
+
+		for (int i = 0; i < m; i++) {
+			Edge edge = edges.get(i);
+			from[i] = edge.getX();
+			to[i] = edge.getY();
+			weight[i] = edge.getWeight();
+		}
+
+		build(numVertices, from, to, weight, m, undirected);
+	}
+
+	/*
+	 * Constructor that builds a graph from an edge list stored in parallel arrays: the i-th edge goes
+	 * from vertex from[i] to vertex to[i] and has weight weight[i]. If "weight" is null, all edges have
+	 * weight 1.
+	 */
+	public CompactGraph(int numVertices, int[] from, int[] to, int[] weight, boolean undirected) {
+
+		if (from.length != to.length || (weight != null && weight.length != from.length))
+			throw new IllegalArgumentException("Edge arrays of different length");
+
+		build(numVertices, from, to, weight, from.length, undirected);
+	}
+
+	/*
+	 * Constructor used internally when the CSR arrays have already been computed
+	 */
+	CompactGraph(int numVertices, int[] offsets, int[] targets, int[] weights) {
+
+		this.numVertices = numVertices;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/*
+	 * This method fills the CSR arrays using a counting sort of the edges by source vertex
+	 */
+	private void build(int n, int[] from, int[] to, int[] weight, int m, boolean undirected) {
+
+		for (int i = 0; i < m; i++) {
+			if (from[i] < 1 || from[i] > n || to[i] < 1 || to[i] > n)
+				throw new IllegalArgumentException("Incorrect edge: (" + from[i] + "," + to[i] + ")");
+		}
+
+		this.numVertices = n;
+		this.offsets = new int[n + 2];
+
+		// Count the degree of every vertex (stored shifted by one position)
+
+		for (int i = 0; i < m; i++) {
+			offsets[from[i] + 1]++;
+			if (undirected) offsets[to[i] + 1]++;
+		}
+
+		// Prefix sums
+
+		for (int x = 1; x <= n; x++) {
+			offsets[x + 1] += offsets[x];
+		}
+
+		this.targets = new int[offsets[n + 1]];
+		this.weights = new int[offsets[n + 1]];
+
+		// Place the edges
+
+		int[] next = new int[n + 1];
+		System.arraycopy(offsets, 0, next, 0, n + 1);
+
+		for (int i = 0; i < m; i++) {
+			int w = weight == null ? 1 : weight[i];
+
+			int pos = next[from[i]]++;
+			targets[pos] = to[i];
+			weights[pos] = w;
+
+			if (undirected) {
+				pos = next[to[i]]++;
+				targets[pos] = from[i];
+				weights[pos] = w;
+			}
+		}
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return offsets[numVertices + 1];
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getTargets() {
+		return targets;
+	}
+
+	public int[] getWeights() {
+		return weights;
+	}
+
+	public int getDegree(int vertex) {
+		return offsets[vertex + 1] - offsets[vertex];
+	}
+
+	/*
+	 * This method returns the reverse of this graph, that is, a graph with the same set of vertices
+	 * and all of the edges reversed.
+	 */
+	public CompactGraph reverse() {
+
+		int n = numVertices;
+		int m = getNumEdges();
+
+		int[] reverseOffsets = new int[n + 2];
+
+		for (int e = 0; e < m; e++) {
+			reverseOffsets[targets[e] + 1]++;
+		}
+
+		for (int x = 1; x <= n; x++) {
+			reverseOffsets[x + 1] += reverseOffsets[x];
+		}
+
+		int[] reverseTargets = new int[m];
+		int[] reverseWeights = new int[m];
+
+		int[] next = new int[n + 1];
+		System.arraycopy(reverseOffsets, 0, next, 0, n + 1);
+
+		for (int x = 1; x <= n; x++) {
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+				int pos = next[targets[e]]++;
+				reverseTargets[pos] = x;
+				reverseWeights[pos] = weights[e];
+			}
+		}
+
+		return new CompactGraph(n, reverseOffsets, reverseTargets, reverseWeights);
+	}
+
+	/*
+	 * This method returns an equivalent graph represented by means of adjacency lists. The adjacency
+	 * list of every vertex keeps the order of the CSR representation.
+	 */
+	public Graph toGraph() {
+
+		Graph graph = new Graph(numVertices);
+
+		for (int x = 1; x <= numVertices; x++) {
+			for (int e = offsets[x + 1] - 1; e >= offsets[x]; e--) { // Graph inserts at the head
+				graph.insertEdge(x, targets[e], weights[e], false);
+			}
+		}
+
+		return graph;
+	}
+}
@@ -0,0 +1,294 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * A read-only graph whose adjacency lists are compressed in a single byte array. The neighbors of every
+ * vertex are sorted, and each of them is stored as the difference (the "gap") with the previous one,
+ * which is usually small when the identifiers of adjacent vertices are close (as in web graphs, or
+ * after a reordering, see VertexOrdering). The first neighbor is stored as its difference with the
+ * vertex itself, which may be negative, so it is "zigzag" encoded (0, -1, 1, -2... become 0, 1, 2,
+ * 3...). Every value is written as a variable-length integer (varint): 7 bits per byte, and the highest
+ * bit of a byte indicates that more bytes follow. Thus, a gap lower than 128 takes a single byte
+ * instead of four.
+ *
+ * If all the weights are 1, they are not stored. Otherwise, the (zigzag encoded) weight of every edge
+ * follows its gap. The adjacency list of a vertex x is found in bytes getOffset(x) to getOffset(x+1)-1
+ * of the data array, and it is decoded sequentially with a Cursor. The algorithms of this package that
+ * accept a CompressedGraph decode the adjacency lists on the fly; note that they visit the neighbors of
+ * every vertex in increasing order, not in the order in which the edges were inserted.
+ *
+ * @author Mario Cervera
+ */
+public class CompressedGraph {
+
+	private int numVertices; // Number of vertices of the graph
+	private int numEdges; // Number of edges of the graph
+	private int[] offsets; // First byte of the adjacency list of each vertex (plus one final sentinel)
+	private byte[] data; // Encoded adjacency lists
+	private boolean weighted; // False if all weights are 1 (and they are not stored)
+
+	/*
+	 * A sequential decoder of adjacency lists. A cursor can be reused for any number of vertices, so
+	 * a traversal only needs one.
+	 */
+	public final class Cursor {
+
+		private int vertex; // Vertex whose adjacency list is being decoded
+		private int start; // First byte of the adjacency list
+		private int position; // Next byte to decode
+		private int end; // First byte after the adjacency list
+		private int target; // Last decoded neighbor
+		private int weight; // Weight of the last decoded edge
+
+		private Cursor() {
+		}
+
+		/*
+		 * Moves the cursor to the beginning of the adjacency list of a vertex
+		 */
+		public void reset(int vertex) {
+
+			this.vertex = vertex;
+			this.start = offsets[vertex];
+			this.position = start;
+			this.end = offsets[vertex + 1];
+			this.weight = 1;
+		}
+
+		/*
+		 * Moves the cursor to a position of the adjacency list of a vertex that was previously
+		 * returned by getPosition, after the decoding of the given neighbor
+		 */
+		public void seek(int vertex, int position, int target) {
+
+			this.vertex = vertex;
+			this.start = offsets[vertex];
+			this.position = position;
+			this.end = offsets[vertex + 1];
+			this.target = target;
+			this.weight = 1;
+		}
+
+		public boolean hasNext() {
+			return position < end;
+		}
+
+		/*
+		 * Decodes the next neighbor of the vertex
+		 */
+		public int next() {
+
+			boolean first = (position == start);
+			int value = readVarint();
+
+			target = first ? vertex + unzigzag(value) : target + value;
+
+			if (weighted) weight = unzigzag(readVarint());
+
+			return target;
+		}
+
+		/*
+		 * Returns the weight of the last decoded edge
+		 */
+		public int getWeight() {
+			return weight;
+		}
+
+		/*
+		 * Returns the position of the cursor (see seek)
+		 */
+		public int getPosition() {
+			return position;
+		}
+
+		private int readVarint() {
+
+			byte b = data[position++];
+
+			if (b >= 0) return b; // Single byte (the most frequent case)
+
+			int value = b & 0x7F;
+
+			for (int shift = 7; b < 0; shift += 7) { // The highest bit is set: more bytes follow
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+			}
+
+			return value;
+		}
+	}
+
+	/*
+	 * Constructor that compresses a graph represented by means of adjacency lists
+	 */
+	public CompressedGraph(Graph graph) {
+
+		this(new CompactGraph(graph));
+	}
+
+	/*
+	 * Constructor that compresses a graph represented in CSR format
+	 */
+	public CompressedGraph(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] graphOffsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		this.numVertices = n;
+		this.numEdges = targets.length;
+		this.offsets = new int[n + 2]; // Vertices are numbered from 1 to N
+
+		for (int e = 0; e < weights.length && !weighted; e++) {
+			weighted = weights[e] != 1;
+		}
+
+		byte[] buffer = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16L, targets.length * (weighted ? 3L : 2L)))];
+		long[] keys = new long[0];
+		int size = 0;
+
+		for (int x = 1; x <= n; x++) {
+
+			offsets[x] = size;
+
+			int degree = graphOffsets[x + 1] - graphOffsets[x];
+
+			// Sort the adjacency list: each key packs the target (high 32 bits) and the weight
+
+			if (keys.length < degree) keys = new long[Math.max(degree, 2 * keys.length)];
+
+			for (int k = 0; k < degree; k++) {
+				int e = graphOffsets[x] + k;
+				keys[k] = ((long) targets[e] << 32) | (weights[e] & 0xFFFFFFFFL);
+			}
+
+			Arrays.sort(keys, 0, degree);
+
+			// Encode the gaps (and the weights)
+
+			int previous = x;
+
+			for (int k = 0; k < degree; k++) {
+
+				if (buffer.length - size < 10) { // Room for two varints
+					if (buffer.length == Integer.MAX_VALUE - 8)
+						throw new IllegalArgumentException("Graph too large to be compressed in an array");
+					buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE - 8, 2L * buffer.length));
+				}
+
+				int target = (int) (keys[k] >>> 32);
+				int gap = (k == 0) ? zigzag(target - x) : target - previous;
+
+				size = writeVarint(buffer, size, gap);
+				if (weighted) size = writeVarint(buffer, size, zigzag((int) keys[k]));
+
+				previous = target;
+			}
+		}
+
+		offsets[n + 1] = size;
+		data = Arrays.copyOf(buffer, size);
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	/*
+	 * Returns the position of the first byte of the adjacency list of a vertex
+	 */
+	public int getOffset(int vertex) {
+		return offsets[vertex];
+	}
+
+	/*
+	 * Returns the size of the encoded adjacency lists, in bytes
+	 */
+	public int getDataSize() {
+		return data.length;
+	}
+
+	/*
+	 * Returns true if the graph stores weights (false if all of them are 1)
+	 */
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	/*
+	 * This method returns a new cursor to decode the adjacency lists of this graph
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/*
+	 * This method returns the degree of a vertex. Every varint ends with a byte whose highest bit is
+	 * not set, so it counts those bytes in the adjacency list (two varints per edge if weighted).
+	 */
+	public int getDegree(int vertex) {
+
+		int count = 0;
+
+		for (int p = offsets[vertex]; p < offsets[vertex + 1]; p++) {
+			if (data[p] >= 0) count++;
+		}
+
+		return weighted ? count / 2 : count;
+	}
+
+	/*
+	 * This method returns a decompressed copy of this graph in CSR format
+	 */
+	public CompactGraph toCompactGraph() {
+
+		int[] compactOffsets = new int[numVertices + 2];
+		int[] targets = new int[numEdges];
+		int[] weights = new int[numEdges];
+		Cursor cursor = new Cursor();
+		int e = 0;
+
+		for (int x = 1; x <= numVertices; x++) {
+
+			compactOffsets[x] = e;
+
+			for (cursor.reset(x); cursor.hasNext(); e++) {
+				targets[e] = cursor.next();
+				weights[e] = cursor.getWeight();
+			}
+		}
+
+		compactOffsets[numVertices + 1] = e;
+
+		return new CompactGraph(numVertices, compactOffsets, targets, weights);
+	}
+
+	/*
+	 * Writes a value as a varint at a given position. Returns the position that follows it.
+	 */
+	private static int writeVarint(byte[] buffer, int position, int value) {
+
+		while ((value & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+
+		return position;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
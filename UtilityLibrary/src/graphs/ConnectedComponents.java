@@ -0,0 +1,229 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import sets.ConcurrentDisjointSets;
+
+/**
+ * This class computes the connected components of undirected graphs in parallel, on the threads of a
+ * ForkJoinPool. All the algorithms are built on a lock-free union-find structure (see
+ * sets.ConcurrentDisjointSets): edges "hook" the trees of their endpoints with compare-and-set
+ * operations, as in the Shiloach-Vishkin algorithm, and paths are shortened by pointer jumping.
+ *
+ * For graphs represented by means of adjacency lists or in CSR format, the Afforest algorithm (Sutton,
+ * Ben-Nun and Barak, 2018) avoids processing most of the edges. First, every vertex is joined with its
+ * first two neighbors, which usually builds a good approximation of the components. Then, the largest
+ * (intermediate) component is identified by sampling random vertices. Finally, the remaining edges are
+ * only processed for the vertices outside of that component: since the graph is undirected, every edge
+ * between the largest component and another vertex is also found from the other vertex. In real-world
+ * graphs, most vertices belong to one giant component, so most edges are skipped.
+ *
+ * For graphs given as edge lists (two parallel arrays), every edge is hooked once.
+ *
+ * The components are numbered from 1 to the number of components, in the order of their smallest
+ * vertex. Undirected graphs must store each edge in both directions (as Graph.insertEdge does).
+ *
+ * @author Mario Cervera
+ */
+public class ConnectedComponents {
+
+	private static final int NEIGHBOR_ROUNDS = 2; // Neighbors joined before sampling
+	private static final int SAMPLES = 1024; // Vertices sampled to find the largest component
+	private static final int VERTEX_GRAIN = 1024; // Vertices per task
+	private static final int EDGE_GRAIN = 4096; // Edges per task
+
+	private ForkJoinPool pool;
+
+	private int[] component; // Component of each vertex
+	private int[] sizes; // Number of vertices of each component
+	private int numComponents;
+
+	/*
+	 * Constructor. The algorithms are run on the common ForkJoinPool.
+	 */
+	public ConnectedComponents() {
+
+		this(ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Constructor. The algorithms are run on the threads of the given pool.
+	 */
+	public ConnectedComponents(ForkJoinPool pool) {
+
+		this.pool = pool;
+	}
+
+	public int getNumComponents() {
+		return numComponents;
+	}
+
+	/*
+	 * Returns the component of each vertex (numbered from 1 to the number of components)
+	 */
+	public int[] getComponent() {
+		return component;
+	}
+
+	/*
+	 * Returns the number of vertices of each component (position 0 is not used)
+	 */
+	public int[] getSizes() {
+		return sizes;
+	}
+
+	/*
+	 * The Afforest algorithm on a graph represented by means of adjacency lists. It returns the
+	 * component of each vertex.
+	 */
+	public int[] afforest(Graph graph) {
+
+		return afforest(new CompactGraph(graph));
+	}
+
+	/*
+	 * The Afforest algorithm on a graph represented in CSR format. It returns the component of
+	 * each vertex.
+	 */
+	public int[] afforest(CompactGraph graph) {
+
+		// Initialize variables
+
+		final int n = graph.getNumVertices();
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+		final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(n + 1); // Vertices are numbered from 1 to N
+
+		// Join every vertex with its first neighbors
+
+		for (int r = 0; r < NEIGHBOR_ROUNDS; r++) {
+
+			final int round = r;
+
+			ParallelFor.run(pool, 1, n + 1, VERTEX_GRAIN, (from, to) -> {
+				for (int v = from; v < to; v++) {
+					if (offsets[v] + round < offsets[v + 1]) {
+						sets.union(v, targets[offsets[v] + round]);
+					}
+				}
+			});
+
+			compressAll(sets, n);
+		}
+
+		// Find the largest intermediate component
+
+		final int largest = sampleLargest(sets, n);
+
+		// Process the remaining edges of the vertices outside of the largest component
+
+		ParallelFor.run(pool, 1, n + 1, VERTEX_GRAIN, (from, to) -> {
+			for (int v = from; v < to; v++) {
+
+				if (sets.find(v) == largest) continue;
+
+				for (int e = offsets[v] + NEIGHBOR_ROUNDS; e < offsets[v + 1]; e++) {
+					sets.union(v, targets[e]);
+				}
+			}
+		});
+
+		compressAll(sets, n);
+		label(sets, n);
+
+		return component;
+	}
+
+	/*
+	 * Connected components of a graph given as a list of edges: the i-th edge joins vertices from[i]
+	 * and to[i] (numbered from 1 to n). Each edge only needs to appear once. It returns the component
+	 * of each vertex.
+	 */
+	public int[] components(int n, final int[] from, final int[] to) {
+
+		if (from.length != to.length)
+			throw new IllegalArgumentException("Arrays of different length");
+
+		final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(n + 1);
+
+		ParallelFor.run(pool, 0, from.length, EDGE_GRAIN, (first, last) -> {
+			for (int i = first; i < last; i++) {
+				sets.union(from[i], to[i]);
+			}
+		});
+
+		compressAll(sets, n);
+		label(sets, n);
+
+		return component;
+	}
+
+	/*
+	 * Links every vertex directly to its root (pointer jumping)
+	 */
+	private void compressAll(final ConcurrentDisjointSets sets, int n) {
+
+		ParallelFor.run(pool, 1, n + 1, VERTEX_GRAIN, (from, to) -> {
+			for (int v = from; v < to; v++) {
+				sets.compress(v);
+			}
+		});
+	}
+
+	/*
+	 * Returns the most frequent root among a sample of vertices
+	 */
+	private static int sampleLargest(ConcurrentDisjointSets sets, int n) {
+
+		if (n == 0) return 0;
+
+		SplittableRandom random = new SplittableRandom(n);
+		int[] sample = new int[SAMPLES];
+
+		for (int i = 0; i < SAMPLES; i++) {
+			sample[i] = sets.find(1 + random.nextInt(n));
+		}
+
+		Arrays.sort(sample);
+
+		int best = sample[0];
+		int bestCount = 0;
+
+		for (int i = 0, j; i < SAMPLES; i = j) {
+
+			for (j = i; j < SAMPLES && sample[j] == sample[i]; j++);
+
+			if (j - i > bestCount) {
+				best = sample[i];
+				bestCount = j - i;
+			}
+		}
+
+		return best;
+	}
+
+	/*
+	 * Numbers the components (from 1, in the order of their smallest vertex) and counts their sizes.
+	 * All the trees must have depth 1.
+	 */
+	private void label(ConcurrentDisjointSets sets, int n) {
+
+		component = new int[n + 1];
+		numComponents = 0;
+
+		// The root of every tree is the smallest vertex of its component
+
+		for (int v = 1; v <= n; v++) {
+			int root = sets.getParent(v);
+			component[v] = (root == v) ? ++numComponents : component[root];
+		}
+
+		sizes = new int[numComponents + 1];
+
+		for (int v = 1; v <= n; v++) {
+			sizes[component[v]]++;
+		}
+	}
+}
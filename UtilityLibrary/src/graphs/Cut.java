@@ -0,0 +1,54 @@
+package graphs;
+
+/**
+ * A cut of a graph: a partition of its vertices into two sets, together with the weight of the edges
+ * that cross from one set to the other. The partition is stored as a boolean array indexed by vertex
+ * (vertices are numbered from 1 to N): side[v] is true if v belongs to the first set.
+ * 
+ * @author Mario Cervera
+ */
+public class Cut {
+
+	// Attributes
+
+	private long weight;
+	private boolean[] side;
+
+	// Constructors
+
+	public Cut(long weight, boolean[] side) {
+		this.weight = weight;
+		this.side = side;
+	}
+	
+	// Getters
+
+	public long getWeight() {
+		return weight;
+	}
+
+	public boolean[] getSide() {
+		return side;
+	}
+	
+	/*
+	 * This method returns the vertices of the first set of the partition
+	 */
+	public int[] getFirstSet() {
+		
+		int size = 0;
+		
+		for(int v = 1; v < side.length; v++) {
+			if(side[v]) size++;
+		}
+		
+		int[] vertices = new int[size];
+		int i = 0;
+		
+		for(int v = 1; v < side.length; v++) {
+			if(side[v]) vertices[i++] = v;
+		}
+		
+		return vertices;
+	}
+}
@@ -0,0 +1,387 @@
+package graphs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class implements the Delta-Stepping algorithm (Meyer and Sanders, 2003), a parallel algorithm
+ * that computes shortest paths from a starting vertex in non-negative weighted graphs. It computes the
+ * same distances as ShortestPath.dijkstra.
+ *
+ * Vertices are kept in "buckets" of width delta according to their tentative distances: bucket i
+ * contains the vertices whose distance is in [i * delta, (i+1) * delta). Buckets are processed in
+ * increasing order, but all the vertices of a bucket are processed at the same time, by the threads of
+ * a ForkJoinPool. Edges are classified as "light" (weight <= delta) and "heavy" (weight > delta).
+ * Relaxing a light edge can insert a vertex in the current bucket, so the light edges of the bucket are
+ * relaxed in phases until the bucket stays empty. Heavy edges can only insert vertices in later buckets,
+ * so they are relaxed once, after the last phase. Distances are lowered with atomic compare-and-set
+ * operations, so concurrent relaxations of the same vertex keep the minimum.
+ *
+ * A small delta processes few vertices at a time (delta = 1 on integer weights behaves like Dijkstra's
+ * algorithm), while a large delta does more work in parallel but relaxes some edges several times
+ * (delta = infinity behaves like Bellman-Ford's algorithm). The default delta is the maximum weight
+ * divided by the average degree. The buckets are stored in a cyclic array, since all tentative
+ * distances lie within "maximum weight" of the current bucket.
+ *
+ * An instance of this class is bound to a graph. Searches are not reentrant: use one instance per
+ * concurrent search.
+ *
+ * @author Mario Cervera
+ */
+public class DeltaStepping {
+
+	private static final int GRAIN = 256; // Vertices per task
+	private static final int MAX_BUCKETS = 1 << 16; // Size limit of the cyclic array
+
+	private CompactGraph graph;
+	private ForkJoinPool pool;
+	private long delta;
+	private int numBuckets;
+
+	private AtomicLongArray distance;
+	private AtomicIntegerArray lastPhase; // Last phase in which each vertex was updated
+	private int phase;
+
+	private int[][] buckets; // Cyclic array of buckets
+	private int[] bucketSize;
+	private int[] spare; // Replaces the array of the bucket that is being processed
+	private long pending; // Entries in all the buckets (some of them may be outdated)
+
+	private int[] updated; // Vertices updated by the last phase
+
+	/*
+	 * Constructor for graphs represented by means of adjacency lists
+	 */
+	public DeltaStepping(Graph graph) {
+
+		this(new CompactGraph(graph));
+	}
+
+	/*
+	 * Constructor. It uses the default delta and the common ForkJoinPool.
+	 */
+	public DeltaStepping(CompactGraph graph) {
+
+		this(graph, defaultDelta(graph), ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Constructor. The searches are run on the threads of the given pool with buckets of width
+	 * "delta".
+	 */
+	public DeltaStepping(CompactGraph graph, long delta, ForkJoinPool pool) {
+
+		if (delta <= 0)
+			throw new IllegalArgumentException("Delta must be positive: " + delta);
+
+		long maxWeight = maxWeight(graph);
+
+		this.graph = graph;
+		this.pool = pool;
+		this.delta = delta;
+		this.numBuckets = (int) Math.min(maxWeight / delta + 2, MAX_BUCKETS);
+	}
+
+	public long getDelta() {
+		return delta;
+	}
+
+	/*
+	 * This method returns the default delta of a graph: the maximum weight divided by the average
+	 * degree (at least 1)
+	 */
+	public static long defaultDelta(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		long m = graph.getNumEdges();
+
+		if (m == 0) return 1;
+
+		return Math.max(1, maxWeight(graph) * n / m);
+	}
+
+	/*
+	 * This method computes the shortest paths from a given starting vertex. It returns an array that
+	 * contains the distance to every vertex (Long.MAX_VALUE for unreachable vertices).
+	 */
+	public long[] shortestPaths(int start) {
+
+		int n = graph.getNumVertices();
+
+		initializeSearch(n);
+
+		distance.set(start, 0);
+		insert(start, 0);
+
+		long bucket = 0; // Index of the current bucket
+		int emptyBuckets = 0; // Consecutive empty buckets
+
+		int[] frontier = new int[16];
+		int[] settled = new int[16]; // Vertices removed from the current bucket
+		int[] settledIn = new int[n + 1]; // Last bucket (round) in which each vertex was settled
+		int round = 0;
+
+		while (pending > 0) {
+
+			int slot = (int) (bucket % numBuckets);
+
+			if (bucketSize[slot] == 0) {
+
+				bucket++;
+
+				// If a whole cycle of buckets is empty, the remaining vertices are far away
+
+				if (++emptyBuckets >= numBuckets) {
+					bucket = minimumBucket();
+					emptyBuckets = 0;
+				}
+				continue;
+			}
+
+			round++;
+
+			// Take the vertices of the current bucket. Outdated entries are discarded and entries
+			// of later buckets (which share the slot of the cyclic array) are kept.
+
+			int frontierSize = 0;
+			int settledSize = 0;
+
+			int[] entries = buckets[slot];
+			int size = bucketSize[slot];
+			buckets[slot] = spare;
+			bucketSize[slot] = 0;
+			pending -= size;
+
+			for (int i = 0; i < size; i++) {
+
+				int v = entries[i];
+				long b = distance.get(v) / delta;
+
+				if (b == bucket) {
+					if (settledIn[v] != round) {
+						settledIn[v] = round;
+						if (frontierSize == frontier.length) frontier = grow(frontier);
+						frontier[frontierSize++] = v;
+						if (settledSize == settled.length) settled = grow(settled);
+						settled[settledSize++] = v;
+					}
+				}
+				else if (b > bucket) {
+					insert(v, distance.get(v));
+				}
+			}
+
+			spare = entries;
+
+			// If the slot only holds entries of later cycles, the current bucket is empty, and so may
+			// be many of the following ones: jump to the lowest bucket that contains a vertex
+
+			if (frontierSize == 0) {
+				bucket = minimumBucket();
+				emptyBuckets = 0;
+				continue;
+			}
+
+			emptyBuckets = 0;
+
+			// Light phases
+
+			while (frontierSize > 0) {
+
+				int updatedSize = relax(frontier, frontierSize, true);
+				frontierSize = 0;
+
+				for (int i = 0; i < updatedSize; i++) {
+
+					int v = updated[i];
+					long d = distance.get(v);
+
+					if (d / delta == bucket) { // Back to the current bucket
+						if (frontierSize == frontier.length) frontier = grow(frontier);
+						frontier[frontierSize++] = v;
+
+						if (settledIn[v] != round) {
+							settledIn[v] = round;
+							if (settledSize == settled.length) settled = grow(settled);
+							settled[settledSize++] = v;
+						}
+					}
+					else {
+						insert(v, d);
+					}
+				}
+			}
+
+			// Heavy phase
+
+			int updatedSize = relax(settled, settledSize, false);
+
+			for (int i = 0; i < updatedSize; i++) {
+				insert(updated[i], distance.get(updated[i]));
+			}
+
+			bucket++;
+		}
+
+		// Copy the distances
+
+		long[] result = new long[n + 1];
+
+		for (int i = 0; i <= n; i++) {
+			result[i] = distance.get(i);
+		}
+
+		return result;
+	}
+
+	/*
+	 * This method relaxes, in parallel, the light or the heavy edges of the given vertices. It returns
+	 * the number of vertices whose distance has been lowered, which are stored in the "updated" array.
+	 * Each task collects these vertices in a local buffer and then copies them to the "updated" array,
+	 * in a region that it reserves with an atomic counter.
+	 */
+	private int relax(final int[] vertices, int size, final boolean light) {
+
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+		final int[] weights = graph.getWeights();
+		final AtomicInteger tail = new AtomicInteger();
+		final int currentPhase = ++phase;
+
+		ParallelFor.run(pool, 0, size, GRAIN, (from, to) -> {
+
+			int[] buffer = new int[64];
+			int count = 0;
+
+			for (int i = from; i < to; i++) {
+
+				int x = vertices[i];
+				long dx = distance.get(x);
+
+				for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+					int w = weights[e];
+
+					if ((w <= delta) != light) continue;
+
+					int y = targets[e];
+					long newDistance = dx + w;
+					long old = distance.get(y);
+
+					// Atomic minimum
+
+					while (newDistance < old && !distance.compareAndSet(y, old, newDistance)) {
+						old = distance.get(y);
+					}
+
+					if (newDistance < old && lastPhase.getAndSet(y, currentPhase) != currentPhase) {
+
+						if (count == buffer.length) buffer = grow(buffer);
+						buffer[count++] = y;
+					}
+				}
+			}
+
+			if (count > 0) {
+				System.arraycopy(buffer, 0, updated, tail.getAndAdd(count), count);
+			}
+		});
+
+		return tail.get();
+	}
+
+	/*
+	 * Inserts a vertex in the bucket that corresponds to a given distance
+	 */
+	private void insert(int vertex, long d) {
+
+		int slot = (int) ((d / delta) % numBuckets);
+
+		if (bucketSize[slot] == buckets[slot].length) buckets[slot] = grow(buckets[slot]);
+
+		buckets[slot][bucketSize[slot]++] = vertex;
+		pending++;
+	}
+
+	/*
+	 * Returns the lowest bucket that contains a vertex. Outdated entries are removed.
+	 */
+	private long minimumBucket() {
+
+		long minimum = Long.MAX_VALUE;
+
+		for (int slot = 0; slot < numBuckets; slot++) {
+
+			int size = 0;
+
+			for (int i = 0; i < bucketSize[slot]; i++) {
+
+				int v = buckets[slot][i];
+				long b = distance.get(v) / delta;
+
+				if (b % numBuckets == slot) { // Not outdated
+					buckets[slot][size++] = v;
+					minimum = Math.min(minimum, b);
+				}
+			}
+
+			pending -= bucketSize[slot] - size;
+			bucketSize[slot] = size;
+		}
+
+		return minimum;
+	}
+
+	/*
+	 * This method initializes the variables that are used in the search
+	 */
+	private void initializeSearch(int n) {
+
+		distance = new AtomicLongArray(n + 1);
+		lastPhase = new AtomicIntegerArray(n + 1);
+		phase = 0;
+
+		for (int i = 0; i <= n; i++) {
+			distance.set(i, Long.MAX_VALUE);
+		}
+
+		buckets = new int[numBuckets][];
+		bucketSize = new int[numBuckets];
+		pending = 0;
+
+		for (int slot = 0; slot < numBuckets; slot++) {
+			buckets[slot] = new int[16];
+		}
+		spare = new int[16];
+
+		updated = new int[n + 1];
+	}
+
+	/*
+	 * Returns the maximum weight of a graph. Negative weights are not allowed.
+	 */
+	private static long maxWeight(CompactGraph graph) {
+
+		int[] weights = graph.getWeights();
+		long maxWeight = 0;
+
+		for (int e = 0; e < graph.getNumEdges(); e++) {
+
+			if (weights[e] < 0)
+				throw new IllegalArgumentException("Negative weight: " + weights[e]);
+
+			maxWeight = Math.max(maxWeight, weights[e]);
+		}
+
+		return maxWeight;
+	}
+
+	private static int[] grow(int[] array) {
+
+		int[] aux = new int[2 * array.length];
+		System.arraycopy(array, 0, aux, 0, array.length);
+		return aux;
+	}
+}
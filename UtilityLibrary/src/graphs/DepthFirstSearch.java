@@ -1,5 +1,7 @@
 package graphs;
 
+import java.nio.IntBuffer;
+
 /**
  * This class provides a generic method to traverse all vertices and edges of a graph using Depth-First
  * Search. The method is generic because it relies on a set of method stubs that must be completed to
@@ -20,6 +22,12 @@ public class DepthFirstSearch {
 	
 	protected boolean finish = false; // Enables premature search termination
 	
+	private int[] stack; // Vertices whose adjacency lists are being explored
+	private EdgeNode[] edgeCursor; // Next edge to explore of each vertex in the stack
+	private int[] positionCursor; // Same as edgeCursor, for graphs in CSR format
+	private long[] offHeapCursor; // Same as edgeCursor, for graphs stored outside of the heap
+	private int[] lastTarget; // Last neighbor decoded from each vertex in the stack, for compressed graphs
+	
 	/*
 	 * Invokes the Depth-First Search algorithm after an initialization of the variables
 	 */
@@ -30,40 +38,399 @@ public class DepthFirstSearch {
 	}
 	
 	/*
-	 * This method implements the Depth-First Search algorithm. By using recursion, new vertices are
-	 * visited as soon as they are available. This behavior could have also been implemented using a
-	 * explicit stack data structure (instead of recursion).
+	 * This method implements the Depth-First Search algorithm. New vertices are visited as soon as
+	 * they are available, exactly as a recursive implementation would do, but the recursion is
+	 * replaced by an explicit stack of vertices. Every vertex in the stack keeps a cursor to the next
+	 * edge of its adjacency list that must be explored. Thus, the search runs in O(n+m) time and does
+	 * not depend on the size of the thread stack, whatever the shape of the graph.
 	 */
 	protected void depthFirstSearch(Graph graph, int vertex) {
 
 		if(finish) return;
 		
+		EdgeNode[] edges = graph.getEdges();
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(edgeCursor == null || edgeCursor.length <= n) edgeCursor = new EdgeNode[n+1];
+		
+		int top = 0;
+		
 		discovered[vertex] = true;
 		processVertexBefore(vertex);
+		edgeCursor[vertex] = edges[vertex];
+		stack[top++] = vertex;
 		
-		EdgeNode adjacentNode = graph.getEdges()[vertex];
+		while(top > 0) {
 		
-		while(adjacentNode != null) { // Iterate adjacent vertices
+			if(finish) return;
+			
+			int x = stack[top-1];
+			EdgeNode adjacentNode = edgeCursor[x];
+			
+			if(adjacentNode == null) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			edgeCursor[x] = adjacentNode.getNext();
 			
 			int y = adjacentNode.getY();
 			
 			if(!discovered[y]) {
-				parent[y] = vertex;
-				processEdge(vertex, y);
-				depthFirstSearch(graph, y);
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				// Visit "y" before the remaining adjacent vertices of "x"
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				edgeCursor[y] = edges[y];
+				stack[top++] = y;
+			}
+			else if(!processed[y] && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				processEdge(x, y);
+			}
+		}
+	}
+	
+	/*
+	 * Invokes the Depth-First Search algorithm on a graph represented in CSR format
+	 */
+	protected void dfs(CompactGraph graph, int vertex) {
+		
+		initializeSearch(graph);
+		depthFirstSearch(graph, vertex);
+	}
+	
+	/*
+	 * Depth-First Search on a graph represented in CSR format. Same behavior as the method above;
+	 * the cursor of each vertex is a position of the CSR arrays.
+	 */
+	protected void depthFirstSearch(CompactGraph graph, int vertex) {
+
+		if(finish) return;
+		
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(positionCursor == null || positionCursor.length <= n) positionCursor = new int[n+1];
+		
+		int top = 0;
+		
+		discovered[vertex] = true;
+		processVertexBefore(vertex);
+		positionCursor[vertex] = offsets[vertex];
+		stack[top++] = vertex;
+		
+		while(top > 0) {
+			
+			if(finish) return;
+			
+			int x = stack[top-1];
+			int e = positionCursor[x];
+			
+			if(e == offsets[x + 1]) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			positionCursor[x] = e + 1;
+			
+			int y = targets[e];
+			
+			if(!discovered[y]) {
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				positionCursor[y] = offsets[y];
+				stack[top++] = y;
+			}
+			else if(!processed[y] && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				processEdge(x, y);
+			}
+		}
+	}
+		
+	/*
+	 * Invokes the Depth-First Search algorithm on a graph mapped from a file
+	 */
+	protected void dfs(MappedGraph graph, int vertex) {
+		
+		initializeSearch(graph);
+		depthFirstSearch(graph, vertex);
+	}
+	
+	/*
+	 * Depth-First Search on a graph mapped from a file. Same behavior as the methods above; the
+	 * adjacency lists are read directly from the mapped buffers.
+	 */
+	protected void depthFirstSearch(MappedGraph graph, int vertex) {
+
+		if(finish) return;
+		
+		IntBuffer offsets = graph.getOffsets();
+		IntBuffer targets = graph.getTargets();
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(positionCursor == null || positionCursor.length <= n) positionCursor = new int[n+1];
+		
+		int top = 0;
+		
+		discovered[vertex] = true;
+		processVertexBefore(vertex);
+		positionCursor[vertex] = offsets.get(vertex);
+		stack[top++] = vertex;
+		
+		while(top > 0) {
+			
+			if(finish) return;
+			
+			int x = stack[top-1];
+			int e = positionCursor[x];
+			
+			if(e == offsets.get(x + 1)) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			positionCursor[x] = e + 1;
+			
+			int y = targets.get(e);
+			
+			if(!discovered[y]) {
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				positionCursor[y] = offsets.get(y);
+				stack[top++] = y;
+			}
+			else if(!processed[y] && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				processEdge(x, y);
+			}
+		}
+	}
+	
+	/*
+	 * Invokes the Depth-First Search algorithm on a graph stored outside of the Java heap
+	 */
+	protected void dfs(OffHeapGraph graph, int vertex) {
+		
+		initializeSearch(graph);
+		depthFirstSearch(graph, vertex);
+	}
+	
+	/*
+	 * Depth-First Search on a graph stored outside of the Java heap. Same behavior as the methods
+	 * above; the cursor of each vertex is a 64-bit position of the edges.
+	 */
+	protected void depthFirstSearch(OffHeapGraph graph, int vertex) {
+
+		if(finish) return;
+		
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(offHeapCursor == null || offHeapCursor.length <= n) offHeapCursor = new long[n+1];
+		
+		int top = 0;
+		
+		discovered[vertex] = true;
+		processVertexBefore(vertex);
+		offHeapCursor[vertex] = graph.getOffset(vertex);
+		stack[top++] = vertex;
+		
+		while(top > 0) {
+			
+			if(finish) return;
+			
+			int x = stack[top-1];
+			long e = offHeapCursor[x];
+			
+			if(e == graph.getOffset(x + 1)) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			offHeapCursor[x] = e + 1;
+			
+			int y = graph.getTarget(e);
+			
+			if(!discovered[y]) {
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				offHeapCursor[y] = graph.getOffset(y);
+				stack[top++] = y;
 			}
-			else if(!processed[y] && parent[vertex] != y) {
+			else if(!processed[y] && parent[x] != y) {
 				// If this condition is true, a cycle has been found
-				processEdge(vertex, y);
+				processEdge(x, y);
 			}
+		}
+	}
+	
+	/*
+	 * Invokes the Depth-First Search algorithm on a compressed graph
+	 */
+	protected void dfs(CompressedGraph graph, int vertex) {
+		
+		initializeSearch(graph);
+		depthFirstSearch(graph, vertex);
+	}
+	
+	/*
+	 * Depth-First Search on a compressed graph. Same behavior as the methods above, but the
+	 * neighbors of every vertex are visited in increasing order. A single decoder is moved to the
+	 * vertex on top of the stack; the cursor of each vertex is a byte position of its adjacency list
+	 * and the last neighbor decoded from it (the next neighbor is encoded as a gap).
+	 */
+	protected void depthFirstSearch(CompressedGraph graph, int vertex) {
+
+		if(finish) return;
+		
+		CompressedGraph.Cursor cursor = graph.cursor();
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(positionCursor == null || positionCursor.length <= n) positionCursor = new int[n+1];
+		if(lastTarget == null || lastTarget.length <= n) lastTarget = new int[n+1];
+		
+		int top = 0;
+		
+		discovered[vertex] = true;
+		processVertexBefore(vertex);
+		positionCursor[vertex] = graph.getOffset(vertex);
+		stack[top++] = vertex;
+		
+		while(top > 0) {
 			
 			if(finish) return;
 			
-			adjacentNode = adjacentNode.getNext();
+			int x = stack[top-1];
+			cursor.seek(x, positionCursor[x], lastTarget[x]);
+			
+			if(!cursor.hasNext()) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			int y = cursor.next();
+			
+			positionCursor[x] = cursor.getPosition();
+			lastTarget[x] = y;
+			
+			if(!discovered[y]) {
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				positionCursor[y] = graph.getOffset(y);
+				stack[top++] = y;
+			}
+			else if(!processed[y] && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				processEdge(x, y);
+			}
 		}
+	}
+	
+	/*
+	 * Invokes the Depth-First Search algorithm on a dynamic graph
+	 */
+	protected void dfs(DynamicGraph graph, int vertex) {
 		
-		processVertexAfter(vertex);
-		processed[vertex] = true;
+		initializeSearch(graph);
+		depthFirstSearch(graph, vertex);
+	}
+	
+	/*
+	 * Depth-First Search on a dynamic graph. Same behavior as the methods above; the cursor of
+	 * each vertex is a position of its adjacency array.
+	 */
+	protected void depthFirstSearch(DynamicGraph graph, int vertex) {
+
+		if(finish) return;
+		
+		int n = graph.getNumVertices();
+		
+		if(stack == null || stack.length <= n) stack = new int[n+1];
+		if(positionCursor == null || positionCursor.length <= n) positionCursor = new int[n+1];
+		
+		int top = 0;
+		
+		discovered[vertex] = true;
+		processVertexBefore(vertex);
+		positionCursor[vertex] = 0;
+		stack[top++] = vertex;
+		
+		while(top > 0) {
+			
+			if(finish) return;
+			
+			int x = stack[top-1];
+			int e = positionCursor[x];
+			
+			if(e == graph.getDegree(x)) { // All adjacent vertices have been explored
+				top--;
+				processVertexAfter(x);
+				processed[x] = true;
+				continue;
+			}
+			
+			positionCursor[x] = e + 1;
+			
+			int y = graph.getTargets(x)[e];
+			
+			if(!discovered[y]) {
+				parent[y] = x;
+				processEdge(x, y);
+				
+				if(finish) return;
+				
+				discovered[y] = true;
+				processVertexBefore(y);
+				positionCursor[y] = 0;
+				stack[top++] = y;
+			}
+			else if(!processed[y] && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				processEdge(x, y);
+			}
+		}
 	}
 	
 	/*
@@ -71,7 +438,35 @@ public class DepthFirstSearch {
 	 */
 	protected void initializeSearch(Graph graph) {
 
-		int N = graph.getNumVertices();
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	protected void initializeSearch(CompactGraph graph) {
+
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	protected void initializeSearch(MappedGraph graph) {
+
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	protected void initializeSearch(DynamicGraph graph) {
+
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	protected void initializeSearch(OffHeapGraph graph) {
+
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	protected void initializeSearch(CompressedGraph graph) {
+
+		initializeSearch(graph.getNumVertices());
+	}
+	
+	private void initializeSearch(int N) {
 
 		discovered = new boolean[N+1]; // Vertices are numbered from 1 to N
 		processed = new boolean[N+1];
@@ -0,0 +1,336 @@
+package graphs;
+
+/**
+ * A graph that supports insertion and deletion of edges and vertices, and changes of the weights of
+ * the edges. The adjacency list of each vertex is stored in two growable primitive arrays (targets and
+ * weights), whose capacity doubles when they are full, so inserting an edge takes amortized O(1) time.
+ * Deleting an edge, or changing its weight, takes O(degree) time: the edge is searched in the adjacency
+ * list and, when it is deleted, the last edge of the list takes its place. Therefore, the order of an
+ * adjacency list is not preserved by deletions. Vertices can also be added, and they are numbered from
+ * 1 to N as in the Graph class.
+ *
+ * The adjacency list of a vertex x is found in positions 0 to getDegree(x)-1 of the arrays returned by
+ * getTargets(x) and getWeights(x). These arrays may be replaced when the graph changes, so they should
+ * not be kept across modifications. The algorithms of this package that accept a DynamicGraph work
+ * directly on these arrays; the others can be run on a snapshot (see toCompactGraph).
+ *
+ * @author Mario Cervera
+ */
+public class DynamicGraph {
+
+	private static final int[] EMPTY = new int[0];
+	private static final int INITIAL_CAPACITY = 4; // Edges of an adjacency list
+
+	private int numVertices; // Number of vertices of the graph
+	private int numEdges; // Number of (directed) edges of the graph
+	private int[][] targets; // Adjacent vertex of each edge of each vertex
+	private int[][] weights; // Weight of each edge of each vertex
+	private int[] degree; // The degree of each vertex (used positions of its arrays)
+
+	/*
+	 * Constructor
+	 */
+	public DynamicGraph(int numVertices) {
+
+		this.numVertices = numVertices;
+		this.targets = new int[numVertices + 1][]; // Vertices are numbered from 1 to N
+		this.weights = new int[numVertices + 1][];
+		this.degree = new int[numVertices + 1];
+
+		for (int i = 0; i <= numVertices; i++) {
+			this.targets[i] = EMPTY;
+			this.weights[i] = EMPTY;
+		}
+	}
+
+	/*
+	 * Constructor that copies a graph represented by means of adjacency lists. The edges of each
+	 * vertex keep the order of its adjacency list.
+	 */
+	public DynamicGraph(Graph graph) {
+
+		this(graph.getNumVertices());
+
+		EdgeNode[] edges = graph.getEdges();
+
+		for (int x = 1; x <= numVertices; x++) {
+
+			int count = 0;
+			for (EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				count++;
+			}
+
+			if (count > 0) {
+				targets[x] = new int[count];
+				weights[x] = new int[count];
+			}
+
+			for (EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				targets[x][degree[x]] = node.getY();
+				weights[x][degree[x]] = node.getWeight();
+				degree[x]++;
+			}
+
+			numEdges += count;
+		}
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	public int getDegree(int vertex) {
+		return degree[vertex];
+	}
+
+	/*
+	 * Returns the adjacent vertices of a vertex (only the first getDegree(vertex) positions are used)
+	 */
+	public int[] getTargets(int vertex) {
+		return targets[vertex];
+	}
+
+	/*
+	 * Returns the weights of the edges of a vertex (only the first getDegree(vertex) positions are used)
+	 */
+	public int[] getWeights(int vertex) {
+		return weights[vertex];
+	}
+
+	/*
+	 * This method adds a new vertex to the graph. It returns the number of the new vertex.
+	 */
+	public int addVertex() {
+
+		if (numVertices + 1 == degree.length) {
+
+			int capacity = 2 * degree.length;
+
+			int[][] newTargets = new int[capacity][];
+			int[][] newWeights = new int[capacity][];
+			int[] newDegree = new int[capacity];
+
+			System.arraycopy(targets, 0, newTargets, 0, degree.length);
+			System.arraycopy(weights, 0, newWeights, 0, degree.length);
+			System.arraycopy(degree, 0, newDegree, 0, degree.length);
+
+			targets = newTargets;
+			weights = newWeights;
+			degree = newDegree;
+		}
+
+		numVertices++;
+		targets[numVertices] = EMPTY;
+		weights[numVertices] = EMPTY;
+		degree[numVertices] = 0;
+
+		return numVertices;
+	}
+
+	/*
+	 * This method adds a new edge to the graph (weighted). Returns true if the insertion is
+	 * successful; false otherwise
+	 */
+	public boolean insertEdge(int x, int y, int weight, boolean undirected) {
+
+		if (x < 1 || x > numVertices || y < 1 || y > numVertices)
+			return false;
+
+		if (degree[x] == targets[x].length) {
+
+			int capacity = Math.max(INITIAL_CAPACITY, 2 * degree[x]);
+
+			int[] newTargets = new int[capacity];
+			int[] newWeights = new int[capacity];
+
+			System.arraycopy(targets[x], 0, newTargets, 0, degree[x]);
+			System.arraycopy(weights[x], 0, newWeights, 0, degree[x]);
+
+			targets[x] = newTargets;
+			weights[x] = newWeights;
+		}
+
+		targets[x][degree[x]] = y;
+		weights[x][degree[x]] = weight;
+		degree[x]++;
+		numEdges++;
+
+		if (undirected) { // If the graph is undirected, insert also the edge (y,x)
+
+			return insertEdge(y, x, weight, false);
+		}
+
+		return true;
+	}
+
+	/*
+	 * This method adds a new edge to the graph (unweighted --> weight = 1)
+	 */
+	public boolean insertEdge(int x, int y, boolean undirected) {
+
+		return insertEdge(x, y, 1, undirected);
+	}
+
+	/*
+	 * This method deletes an edge (x,y) from the graph. If there are several edges (x,y), only one
+	 * of them is deleted and, if the graph is undirected, the edge (y,x) that is also deleted is one
+	 * with the same weight, so the two halves stay symmetric. Returns true if the edge existed; false
+	 * otherwise
+	 */
+	public boolean deleteEdge(int x, int y, boolean undirected) {
+
+		int e = indexOf(x, y);
+
+		if (e == -1)
+			return false;
+
+		int weight = weights[x][e];
+
+		removeEdge(x, e);
+
+		if (undirected) { // Delete also the edge (y,x). A self-loop of an undirected graph is stored twice
+
+			e = indexOf(y, x, weight, 0);
+
+			if (e == -1)
+				return false;
+
+			removeEdge(y, e);
+		}
+
+		return true;
+	}
+
+	/*
+	 * This method changes the weight of an edge (x,y). If there are several edges (x,y), only one of
+	 * them is changed and, if the graph is undirected, the edge (y,x) that is also changed is one
+	 * with the same (old) weight. Returns true if the edge existed; false otherwise
+	 */
+	public boolean updateWeight(int x, int y, int weight, boolean undirected) {
+
+		int e = indexOf(x, y);
+
+		if (e == -1)
+			return false;
+
+		int oldWeight = weights[x][e];
+
+		weights[x][e] = weight;
+
+		if (undirected) { // Change also the edge (y,x). The other half of a self-loop follows position e
+
+			e = (x == y) ? indexOf(x, x, oldWeight, e + 1) : indexOf(y, x, oldWeight, 0);
+
+			if (e == -1)
+				return false;
+
+			weights[y][e] = weight;
+		}
+
+		return true;
+	}
+
+	/*
+	 * Returns true if the graph contains an edge (x,y)
+	 */
+	public boolean hasEdge(int x, int y) {
+
+		return indexOf(x, y) != -1;
+	}
+
+	/*
+	 * Returns the weight of an edge (x,y), or Integer.MIN_VALUE if the graph does not contain it
+	 */
+	public int getWeight(int x, int y) {
+
+		int e = indexOf(x, y);
+
+		return e == -1 ? Integer.MIN_VALUE : weights[x][e];
+	}
+
+	/*
+	 * This method returns a snapshot of this graph in CSR format
+	 */
+	public CompactGraph toCompactGraph() {
+
+		int n = numVertices;
+		int[] offsets = new int[n + 2];
+		int[] allTargets = new int[numEdges];
+		int[] allWeights = new int[numEdges];
+
+		for (int x = 1; x <= n; x++) {
+			offsets[x + 1] = offsets[x] + degree[x];
+			System.arraycopy(targets[x], 0, allTargets, offsets[x], degree[x]);
+			System.arraycopy(weights[x], 0, allWeights, offsets[x], degree[x]);
+		}
+
+		return new CompactGraph(n, offsets, allTargets, allWeights);
+	}
+
+	/*
+	 * This method returns a copy of this graph represented by means of adjacency lists
+	 */
+	public Graph toGraph() {
+
+		return toCompactGraph().toGraph();
+	}
+
+	/*
+	 * Returns the position of an edge (x,y) in the adjacency list of x, or -1 if there is none
+	 */
+	private int indexOf(int x, int y) {
+
+		return indexOf(x, y, 0);
+	}
+
+	/*
+	 * Same as the method above, starting the search at a given position
+	 */
+	private int indexOf(int x, int y, int from) {
+
+		if (x < 1 || x > numVertices)
+			return -1;
+
+		int[] list = targets[x];
+
+		for (int e = from; e < degree[x]; e++) {
+			if (list[e] == y) return e;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Same as the method above, for an edge (x,y) with a given weight
+	 */
+	private int indexOf(int x, int y, int weight, int from) {
+
+		if (x < 1 || x > numVertices)
+			return -1;
+
+		int[] list = targets[x];
+
+		for (int e = from; e < degree[x]; e++) {
+			if (list[e] == y && weights[x][e] == weight) return e;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Deletes the edge in position e of the adjacency list of x: the last edge of the list takes its
+	 * place
+	 */
+	private void removeEdge(int x, int e) {
+
+		int last = --degree[x];
+
+		targets[x][e] = targets[x][last];
+		weights[x][e] = weights[x][last];
+		numEdges--;
+	}
+}
@@ -0,0 +1,203 @@
+package graphs;
+
+/**
+ * This class maintains the shortest paths from a starting vertex (the "source") of a dynamic graph with
+ * non-negative weights while edges are inserted or their weights are decreased. Instead of running
+ * Dijkstra's algorithm again after every change, it repairs the distances as in the algorithm of
+ * Ramalingam and Reps (1996): a change of an edge (x,y) can only shorten the paths that go through it,
+ * so if it improves the distance to y, Dijkstra's algorithm is resumed with y as the only vertex of the
+ * heap. The search stops when no distance improves, so its cost is bounded by the number of vertices
+ * whose distance changes (the "touched" vertices) and their edges.
+ *
+ * Deleting edges or increasing weights can lengthen the shortest paths, which is not supported by
+ * this kind of propagation. After such changes (made directly on the graph), the distances must be
+ * computed again with the recompute method.
+ *
+ * @author Mario Cervera
+ */
+public class DynamicShortestPath {
+
+	private DynamicGraph graph;
+	private int source;
+
+	private long[] distance;
+	private int[] parent;
+	private IndexedMinHeap heap;
+
+	private int numTouched; // Vertices whose distance changed in the last update
+
+	/*
+	 * Constructor. It computes the shortest paths from the source with Dijkstra's algorithm.
+	 */
+	public DynamicShortestPath(DynamicGraph graph, int source) {
+
+		this.graph = graph;
+		this.source = source;
+
+		recompute();
+	}
+
+	public int getSource() {
+		return source;
+	}
+
+	/*
+	 * Returns the distance from the source to a vertex (Long.MAX_VALUE if it is not reachable)
+	 */
+	public long getDistance(int vertex) {
+
+		return vertex < distance.length ? distance[vertex] : Long.MAX_VALUE;
+	}
+
+	/*
+	 * Returns the parent of a vertex in the shortest paths tree (-1 for the source and for the
+	 * vertices that are not reachable)
+	 */
+	public int getParent(int vertex) {
+
+		return vertex < parent.length ? parent[vertex] : -1;
+	}
+
+	/*
+	 * Returns a shortest path from the source to a vertex, or null if it is not reachable
+	 */
+	public int[] getPath(int target) {
+
+		if (target >= parent.length) return null;
+
+		return ShortestPath.getPath(parent, source, target);
+	}
+
+	/*
+	 * Returns the number of vertices whose distance changed in the last update
+	 */
+	public int getNumTouched() {
+		return numTouched;
+	}
+
+	/*
+	 * This method inserts an edge in the graph and repairs the shortest paths. Returns true if the
+	 * insertion is successful; false otherwise
+	 */
+	public boolean insertEdge(int x, int y, int weight, boolean undirected) {
+
+		if (weight < 0)
+			throw new IllegalArgumentException("Negative weight: " + weight);
+
+		if (!graph.insertEdge(x, y, weight, undirected))
+			return false;
+
+		numTouched = 0;
+		ensureCapacity();
+
+		repair(x, y, weight);
+		if (undirected) repair(y, x, weight);
+
+		return true;
+	}
+
+	/*
+	 * This method decreases the weight of an edge of the graph and repairs the shortest paths.
+	 * Returns true if the edge exists; false otherwise
+	 */
+	public boolean decreaseWeight(int x, int y, int weight, boolean undirected) {
+
+		if (weight < 0)
+			throw new IllegalArgumentException("Negative weight: " + weight);
+
+		if (graph.hasEdge(x, y) && graph.getWeight(x, y) < weight)
+			throw new IllegalArgumentException("The weight of (" + x + "," + y + ") cannot be increased");
+
+		if (!graph.updateWeight(x, y, weight, undirected))
+			return false;
+
+		numTouched = 0;
+		ensureCapacity();
+
+		repair(x, y, weight);
+		if (undirected) repair(y, x, weight);
+
+		return true;
+	}
+
+	/*
+	 * This method computes the shortest paths from scratch. It must be invoked after the graph has
+	 * been changed by other means (for example, after deleting edges).
+	 */
+	public void recompute() {
+
+		int n = graph.getNumVertices();
+
+		parent = new int[n + 1];
+		distance = ShortestPath.dijkstra(graph, source, parent);
+		heap = new IndexedMinHeap(n + 1);
+		numTouched = n;
+	}
+
+	/*
+	 * This method propagates the improvement (if any) of the distance to y through the edge (x,y)
+	 */
+	private void repair(int x, int y, int weight) {
+
+		if (distance[x] == Long.MAX_VALUE || distance[x] + weight >= distance[y])
+			return; // The edge does not shorten any path
+
+		distance[y] = distance[x] + weight;
+		parent[y] = x;
+		heap.insert(y, distance[y]);
+
+		// Dijkstra's algorithm restricted to the vertices whose distance improves
+
+		while (!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			numTouched++;
+
+			int[] targets = graph.getTargets(node);
+			int[] weights = graph.getWeights(node);
+			int degree = graph.getDegree(node);
+
+			for (int e = 0; e < degree; e++) {
+
+				int v = targets[e];
+				long newDistance = distance[node] + weights[e];
+
+				if (newDistance < distance[v]) {
+
+					if (heap.contains(v)) heap.decreaseKey(v, newDistance);
+					else heap.insert(v, newDistance);
+
+					distance[v] = newDistance;
+					parent[v] = node;
+				}
+			}
+		}
+	}
+
+	/*
+	 * This method grows the arrays if vertices have been added to the graph
+	 */
+	private void ensureCapacity() {
+
+		int n = graph.getNumVertices();
+
+		if (distance.length > n) return;
+
+		int capacity = Math.max(n + 1, 2 * distance.length);
+
+		long[] newDistance = new long[capacity];
+		int[] newParent = new int[capacity];
+
+		System.arraycopy(distance, 0, newDistance, 0, distance.length);
+		System.arraycopy(parent, 0, newParent, 0, parent.length);
+
+		for (int i = distance.length; i < capacity; i++) {
+			newDistance[i] = Long.MAX_VALUE;
+			newParent[i] = -1;
+		}
+
+		distance = newDistance;
+		parent = newParent;
+		heap = new IndexedMinHeap(capacity);
+	}
+}
@@ -0,0 +1,348 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class reads graphs from text files that contain one edge per line, such as the edge lists of
+ * the SNAP collection ("x y") or the arcs of the DIMACS format ("a x y w"). Each line contains two
+ * vertices and an optional weight (1 by default), separated by spaces, tabs or commas, and may start
+ * with the letter "a" or "e". Lines that start with any other character ("#", "%", "c", "p", ...)
+ * are comments.
+ *
+ * The file is mapped into memory and split into byte ranges that start at line boundaries, and every
+ * range is parsed by a different thread. Integers are parsed from the mapped bytes, which are read in
+ * small windows that fit in the processor cache, without creating any String or per-line object. The
+ * graph is built in two passes over the file: the first pass counts the degree of every vertex, which
+ * gives the offsets of the CSR representation, and the second pass places every edge in its final
+ * position. Since the ranges are filled concurrently, the order of the edges within an adjacency list
+ * is not necessarily the order of the file.
+ *
+ * @author Mario Cervera
+ */
+public class EdgeListReader {
+
+	private static final long MAX_RANGE_SIZE = 1L << 30; // Bytes per mapping
+	private static final int RANGES_PER_THREAD = 4; // Load balancing
+	private static final int WINDOW_SIZE = 1 << 16; // Bytes parsed at once
+
+	private static final int MAX_VERTEX = 0; // Parsing modes
+	private static final int COUNT = 1;
+	private static final int FILL = 2;
+
+	/*
+	 * This method reads a graph in CSR format on the common ForkJoinPool. If "numVertices" is not
+	 * positive, the number of vertices is the largest vertex in the file, which requires an extra
+	 * pass. If "zeroBased" is true, vertices are numbered from 0 in the file (and from 1 in the graph).
+	 */
+	public static CompactGraph read(File file, int numVertices, boolean undirected, boolean zeroBased) throws IOException {
+
+		return read(file, numVertices, undirected, zeroBased, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * This method reads a graph represented by means of adjacency lists
+	 */
+	public static Graph readGraph(File file, int numVertices, boolean undirected, boolean zeroBased) throws IOException {
+
+		return read(file, numVertices, undirected, zeroBased).toGraph();
+	}
+
+	/*
+	 * This method reads a graph in CSR format using the threads of the given pool
+	 */
+	public static CompactGraph read(File file, int numVertices, final boolean undirected, final boolean zeroBased, ForkJoinPool pool) throws IOException {
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+
+			final MappedByteBuffer[] ranges = split(channel, pool.getParallelism() * RANGES_PER_THREAD);
+
+			// Number of vertices
+
+			int n = numVertices;
+
+			if (n <= 0) {
+
+				final int[] maxVertex = new int[ranges.length];
+
+				ParallelFor.run(pool, 0, ranges.length, 1, (from, to) -> {
+					for (int r = from; r < to; r++) {
+						maxVertex[r] = new RangeParser(MAX_VERTEX, zeroBased, undirected, Integer.MAX_VALUE).parse(ranges[r]);
+					}
+				});
+
+				for (int r = 0; r < ranges.length; r++) {
+					n = Math.max(n, maxVertex[r]);
+				}
+			}
+
+			// First pass: degrees
+
+			final RangeParser[] parsers = new RangeParser[ranges.length];
+			final AtomicIntegerArray position = new AtomicIntegerArray(n + 2);
+
+			for (int r = 0; r < ranges.length; r++) {
+				parsers[r] = new RangeParser(COUNT, zeroBased, undirected, n);
+				parsers[r].position = position;
+			}
+
+			ParallelFor.run(pool, 0, ranges.length, 1, (from, to) -> {
+				for (int r = from; r < to; r++) {
+					parsers[r].parse(ranges[r]);
+				}
+			});
+
+			// Offsets (prefix sums of the degrees)
+
+			int[] offsets = new int[n + 2];
+			long total = 0;
+
+			for (int x = 1; x <= n; x++) {
+
+				offsets[x] = (int) total;
+				total += position.get(x);
+
+				if (total > Integer.MAX_VALUE)
+					throw new IllegalArgumentException("Too many edges for a CSR graph: " + total);
+
+				position.set(x, offsets[x]); // Next free position of x
+			}
+			offsets[n + 1] = (int) total;
+
+			// Second pass: place the edges
+
+			int[] targets = new int[(int) total];
+			int[] weights = new int[(int) total];
+
+			for (int r = 0; r < ranges.length; r++) {
+				parsers[r].mode = FILL;
+				parsers[r].targets = targets;
+				parsers[r].weights = weights;
+			}
+
+			ParallelFor.run(pool, 0, ranges.length, 1, (from, to) -> {
+				for (int r = from; r < to; r++) {
+					parsers[r].parse(ranges[r]);
+				}
+			});
+
+			return new CompactGraph(n, offsets, targets, weights);
+		}
+	}
+
+	/*
+	 * This method splits the file into (at least) the given number of ranges, which start at line
+	 * boundaries, and maps each range into memory.
+	 */
+	private static MappedByteBuffer[] split(FileChannel channel, int numRanges) throws IOException {
+
+		long size = channel.size();
+		int count = (int) Math.max(numRanges, (size + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE);
+		count = (int) Math.max(1, Math.min(count, size));
+
+		long[] boundary = new long[count + 1];
+		boundary[count] = size;
+
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+
+		for (int i = 1; i < count; i++) {
+
+			// Move the nominal boundary forward to the start of the next line
+
+			long position = Math.max(size / count * i, boundary[i - 1]);
+			boolean found = position == 0;
+
+			while (!found && position < size) {
+
+				probe.clear();
+				int read = channel.read(probe, position - 1);
+				if (read <= 0) break;
+
+				for (int j = 0; j < read && !found; j++) {
+					if (probe.get(j) == '\n') found = true;
+					else position++;
+				}
+			}
+
+			boundary[i] = Math.min(position, size);
+		}
+
+		MappedByteBuffer[] ranges = new MappedByteBuffer[count];
+
+		for (int i = 0; i < count; i++) {
+			ranges[i] = channel.map(FileChannel.MapMode.READ_ONLY, boundary[i], boundary[i + 1] - boundary[i]);
+		}
+
+		return ranges;
+	}
+
+	/*
+	 * The parser of a range of the file
+	 */
+	private static class RangeParser {
+
+		int mode;
+		boolean zeroBased;
+		boolean undirected;
+		int n;
+
+		AtomicIntegerArray position; // Degrees (first pass) or next free position (second pass)
+		int[] targets;
+		int[] weights;
+
+		private int[] tokens = new int[3];
+		private byte[] window = new byte[WINDOW_SIZE];
+
+		RangeParser(int mode, boolean zeroBased, boolean undirected, int n) {
+			this.mode = mode;
+			this.zeroBased = zeroBased;
+			this.undirected = undirected;
+			this.n = n;
+		}
+
+		/*
+		 * This method parses all the lines of the range. In MAX_VERTEX mode, it returns the
+		 * largest vertex found. The range is copied in small windows that fit in the processor
+		 * cache, since reading a mapped buffer byte by byte is much slower than reading an array.
+		 */
+		int parse(ByteBuffer range) {
+
+			ByteBuffer buffer = range.duplicate();
+			int maxVertex = 0;
+			boolean skipLine = false;
+
+			while (buffer.hasRemaining()) {
+
+				int start = buffer.position();
+				int length = Math.min(window.length, buffer.remaining());
+				buffer.get(window, 0, length);
+
+				// Only complete lines are parsed; the last one is read again with the next window
+
+				int end = length;
+
+				if (buffer.hasRemaining()) {
+					while (end > 0 && window[end - 1] != '\n') end--;
+				}
+
+				int from = 0;
+
+				if (skipLine) { // Rest of a line longer than the window
+					while (from < end && window[from] != '\n') from++;
+					skipLine = false;
+				}
+
+				if (end == 0) { // No line ends in this window: the line cannot be an edge
+					skipLine = true;
+					continue;
+				}
+
+				buffer.position(start + end);
+				maxVertex = Math.max(maxVertex, parseLines(from, end));
+			}
+
+			return maxVertex;
+		}
+
+		/*
+		 * This method parses the lines of the window between two positions
+		 */
+		private int parseLines(int pos, int limit) {
+
+			byte[] bytes = window;
+			int maxVertex = 0;
+
+			while (pos < limit) {
+
+				// Start of a line
+
+				byte c = bytes[pos];
+
+				while (isBlank(c) && ++pos < limit) c = bytes[pos];
+
+				if (pos == limit) break;
+
+				if (c == 'a' || c == 'e') {
+					pos++;
+				}
+				else if ((c < '0' || c > '9') && c != '-') { // Comment or empty line
+					while (pos < limit && bytes[pos] != '\n') pos++;
+					pos++;
+					continue;
+				}
+
+				// Tokens of the line
+
+				int numTokens = 0;
+
+				while (pos < limit && (c = bytes[pos]) != '\n') {
+
+					if (isBlank(c) || c == ',') {
+						pos++;
+						continue;
+					}
+
+					boolean negative = c == '-';
+					if (negative) pos++;
+
+					int value = 0;
+
+					while (pos < limit && (c = bytes[pos]) >= '0' && c <= '9') {
+						value = 10 * value + (c - '0');
+						pos++;
+					}
+
+					if (numTokens < 3) tokens[numTokens++] = negative ? -value : value;
+
+					while (pos < limit && (c = bytes[pos]) != '\n' && !isBlank(c) && c != ',') pos++; // Junk
+				}
+
+				pos++; // End of line
+
+				if (numTokens < 2) continue;
+
+				int x = zeroBased ? tokens[0] + 1 : tokens[0];
+				int y = zeroBased ? tokens[1] + 1 : tokens[1];
+				int w = numTokens == 3 ? tokens[2] : 1;
+
+				if (x < 1 || x > n || y < 1 || y > n)
+					throw new IllegalArgumentException("Incorrect edge: (" + tokens[0] + "," + tokens[1] + ")");
+
+				addEdge(x, y, w);
+
+				if (mode == MAX_VERTEX) maxVertex = Math.max(maxVertex, Math.max(x, y));
+			}
+
+			return maxVertex;
+		}
+
+		private void addEdge(int x, int y, int w) {
+
+			if (mode == COUNT) {
+				position.incrementAndGet(x);
+				if (undirected) position.incrementAndGet(y);
+			}
+			else if (mode == FILL) {
+				int e = position.getAndIncrement(x);
+				targets[e] = y;
+				weights[e] = w;
+
+				if (undirected) {
+					e = position.getAndIncrement(y);
+					targets[e] = x;
+					weights[e] = w;
+				}
+			}
+		}
+
+		private static boolean isBlank(byte c) {
+			return c == ' ' || c == '\t' || c == '\r';
+		}
+	}
+}
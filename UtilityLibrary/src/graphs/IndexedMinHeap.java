@@ -0,0 +1,168 @@
+package graphs;
+
+/**
+ * An indexed priority queue of integer elements (for example, the vertices of a graph) with long keys.
+ * It is implemented as a binary heap stored in a primitive array, together with an array that holds
+ * the position of every element in the heap. This second array enables the "decrease key" operation
+ * in O(log n) time, which is what algorithms such as Dijkstra's and Prim's need.
+ *
+ * Elements must be in the range 0 to capacity-1. No objects are allocated after construction.
+ *
+ * @author Mario Cervera
+ */
+public class IndexedMinHeap {
+
+	private int[] heap; // Elements, in heap order (position 0 is the root)
+	private int[] position; // Position of each element in the heap (-1 if not in the heap)
+	private long[] key; // Key of each element
+	private int size;
+
+	/*
+	 * Constructor
+	 */
+	public IndexedMinHeap(int capacity) {
+
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.key = new long[capacity];
+		this.size = 0;
+
+		for (int i = 0; i < capacity; i++) {
+			position[i] = -1;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int element) {
+		return position[element] != -1;
+	}
+
+	public long getKey(int element) {
+		return key[element];
+	}
+
+	/*
+	 * Returns the element with minimum key (without removing it)
+	 */
+	public int peek() {
+		return heap[0];
+	}
+
+	/*
+	 * Returns the minimum key in the heap
+	 */
+	public long minKey() {
+		return key[heap[0]];
+	}
+
+	/*
+	 * Adds a new element to the heap. The element must not be in the heap already.
+	 */
+	public void insert(int element, long k) {
+
+		key[element] = k;
+		heap[size] = element;
+		position[element] = size;
+		size++;
+
+		siftUp(size - 1);
+	}
+
+	/*
+	 * Decreases the key of an element that is in the heap. The new key must not be greater than
+	 * the current one.
+	 */
+	public void decreaseKey(int element, long k) {
+
+		key[element] = k;
+		siftUp(position[element]);
+	}
+
+	/*
+	 * Removes the element with minimum key from the heap and returns it
+	 */
+	public int extractMin() {
+
+		int min = heap[0];
+
+		size--;
+		position[min] = -1;
+
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return min;
+	}
+
+	/*
+	 * Removes all the elements from the heap. Runs in time proportional to the number of elements
+	 * in the heap (not to its capacity).
+	 */
+	public void clear() {
+
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/*
+	 * Moves up the element in position "i" until the heap property is restored
+	 */
+	private void siftUp(int i) {
+
+		int element = heap[i];
+		long k = key[element];
+
+		while (i > 0) {
+			int p = (i - 1) >>> 1;
+			int parent = heap[p];
+
+			if (key[parent] <= k) break;
+
+			heap[i] = parent;
+			position[parent] = i;
+			i = p;
+		}
+
+		heap[i] = element;
+		position[element] = i;
+	}
+
+	/*
+	 * Moves down the element in position "i" until the heap property is restored
+	 */
+	private void siftDown(int i) {
+
+		int element = heap[i];
+		long k = key[element];
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+
+			if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+				child++;
+			}
+
+			if (key[heap[child]] >= k) break;
+
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+
+		heap[i] = element;
+		position[element] = i;
+	}
+}
@@ -0,0 +1,227 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only graph in CSR format (see CompactGraph) whose arrays live in a file that is mapped into
+ * memory. Opening a graph does not read or parse the file: the operating system loads its pages on
+ * demand, and they are shared (through the page cache) by all the processes that map the same file.
+ * The algorithms of this package that accept a MappedGraph work directly on the mapped buffers.
+ *
+ * The binary format of the file (all values are 32-bit little-endian integers) is the following:
+ *
+ * Header (8 values): magic number, version, number of vertices (n), number of edges (m), flags
+ * (bit 0: the file contains weights), and three reserved values.
+ * Offsets (n+2 values): start of the adjacency list of each vertex, as in CompactGraph.
+ * Targets (m values): adjacent vertex of each edge.
+ * Weights (m values): weight of each edge. Omitted if all weights are 1.
+ *
+ * @author Mario Cervera
+ */
+public class MappedGraph {
+
+	private static final int MAGIC = 0x55474246; // "UGBF"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8; // Values
+	private static final int FLAG_WEIGHTED = 1;
+
+	private static final int WRITE_BUFFER_SIZE = 1 << 20; // Bytes
+
+	private int numVertices;
+	private int numEdges;
+	private IntBuffer offsets;
+	private IntBuffer targets;
+	private IntBuffer weights; // null if all weights are 1
+
+	private MappedGraph(int numVertices, int numEdges, IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+
+		this.numVertices = numVertices;
+		this.numEdges = numEdges;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	public IntBuffer getOffsets() {
+		return offsets;
+	}
+
+	public IntBuffer getTargets() {
+		return targets;
+	}
+
+	/*
+	 * Returns the weights of the edges, or null if all of them are 1
+	 */
+	public IntBuffer getWeights() {
+		return weights;
+	}
+
+	public int getDegree(int vertex) {
+		return offsets.get(vertex + 1) - offsets.get(vertex);
+	}
+
+	/*
+	 * Returns the weight of the edge in position "e" of the targets buffer
+	 */
+	public int getWeight(int e) {
+		return weights == null ? 1 : weights.get(e);
+	}
+
+	/*
+	 * This method maps a graph file into memory
+	 */
+	public static MappedGraph open(File file) throws IOException {
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+
+			IntBuffer header = map(channel, 0, HEADER_SIZE);
+
+			if (header.get(0) != MAGIC)
+				throw new IOException("Not a graph file: " + file);
+
+			if (header.get(1) != VERSION)
+				throw new IOException("Unsupported graph file version: " + header.get(1));
+
+			int n = header.get(2);
+			int m = header.get(3);
+			boolean weighted = (header.get(4) & FLAG_WEIGHTED) != 0;
+
+			long position = 4L * HEADER_SIZE;
+			long expectedSize = position + 4L * (n + 2) + 4L * m * (weighted ? 2 : 1);
+
+			if (channel.size() < expectedSize)
+				throw new IOException("Truncated graph file: " + file);
+
+			IntBuffer offsets = map(channel, position, n + 2);
+			position += 4L * (n + 2);
+
+			IntBuffer targets = map(channel, position, m);
+			position += 4L * m;
+
+			IntBuffer weights = weighted ? map(channel, position, m) : null;
+
+			return new MappedGraph(n, m, offsets, targets, weights); // The mappings outlive the channel
+		}
+	}
+
+	/*
+	 * This method writes a graph represented by means of adjacency lists to a file
+	 */
+	public static void write(Graph graph, File file) throws IOException {
+
+		write(new CompactGraph(graph), file);
+	}
+
+	/*
+	 * This method writes a graph represented in CSR format to a file
+	 */
+	public static void write(CompactGraph graph, File file) throws IOException {
+
+		int n = graph.getNumVertices();
+		int m = graph.getNumEdges();
+		int[] weights = graph.getWeights();
+
+		if (4L * Math.max(n + 2, m) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Graph too large for a single mapping per array");
+
+		boolean weighted = false;
+
+		for (int e = 0; e < m && !weighted; e++) {
+			weighted = weights[e] != 1;
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+
+			channel.truncate(0);
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			int[] header = { MAGIC, VERSION, n, m, weighted ? FLAG_WEIGHTED : 0, 0, 0, 0 };
+
+			writeInts(channel, buffer, header, HEADER_SIZE);
+			writeInts(channel, buffer, graph.getOffsets(), n + 2);
+			writeInts(channel, buffer, graph.getTargets(), m);
+
+			if (weighted) {
+				writeInts(channel, buffer, weights, m);
+			}
+
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/*
+	 * This method returns a copy of this graph in the Java heap
+	 */
+	public CompactGraph toCompactGraph() {
+
+		int[] offsetArray = new int[numVertices + 2];
+		int[] targetArray = new int[numEdges];
+		int[] weightArray = new int[numEdges];
+
+		offsets.duplicate().get(offsetArray);
+		targets.duplicate().get(targetArray);
+
+		if (weights != null) {
+			weights.duplicate().get(weightArray);
+		}
+		else {
+			for (int e = 0; e < numEdges; e++) {
+				weightArray[e] = 1;
+			}
+		}
+
+		return new CompactGraph(numVertices, offsetArray, targetArray, weightArray);
+	}
+
+	/*
+	 * Maps "count" 32-bit values of the file, starting at a given byte position
+	 */
+	private static IntBuffer map(FileChannel channel, long position, int count) throws IOException {
+
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	/*
+	 * Writes the first "count" values of an array through the given buffer, which is flushed to
+	 * the channel whenever it is full
+	 */
+	private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+
+		int i = 0;
+
+		while (i < count) {
+
+			if (buffer.remaining() < 4) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			}
+
+			int k = Math.min(count - i, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, i, k);
+			buffer.position(buffer.position() + 4 * k);
+			i += k;
+		}
+	}
+}
@@ -0,0 +1,546 @@
+package graphs;
+
+/**
+ * This class computes maximum flows and minimum cuts between two vertices (the "source" s and the
+ * "sink" t) of a directed graph whose weights are the capacities of the edges. By the max-flow min-cut
+ * theorem, the value of a maximum flow equals the capacity of a minimum s-t cut, and such a cut
+ * separates the vertices that can still reach t in the residual graph of the flow from the others.
+ *
+ * The residual graph is stored in CSR format with primitive arrays: every edge (x,y) of the input
+ * graph is paired with a reverse edge (y,x) of capacity 0, and each of them stores the position of
+ * the other one, so pushing flow through an edge only updates two residual capacities. The capacities
+ * and the flow values are 64-bit integers. An undirected graph (every edge stored in both directions,
+ * as Graph.insertEdge does) has capacity in both directions.
+ *
+ * Dinic's algorithm repeatedly computes the distance of every vertex from s in the residual graph (a
+ * Breadth-First Search) and then saturates all the shortest augmenting paths (a "blocking flow") with
+ * a Depth-First Search that only follows edges to the next level. The search is iterative and every
+ * vertex keeps a "current arc", so dead ends are not explored again. It runs in O(n^2 m) time, and
+ * much faster on unit-capacity graphs.
+ *
+ * The push-relabel algorithm (Goldberg and Tarjan, 1988) maintains a "preflow" instead of a flow:
+ * vertices may receive more flow than they send, and the "active" vertices push their excess towards
+ * the vertices with a lower label (height), which estimates their distance to t. This implementation
+ * processes the active vertex with the highest label first, which bounds the running time by
+ * O(n^2 sqrt(m)), and uses the two heuristics that make it fast in practice: the labels are
+ * periodically recomputed as exact distances to t ("global relabeling"), and when no vertex has a
+ * given label, all the vertices above it are known not to reach t ("gap" heuristic). Only the first
+ * phase is run (a maximum preflow), which gives the value of the flow and a minimum cut.
+ *
+ * An instance of this class is bound to a graph. The algorithms are not reentrant: use one instance
+ * per concurrent computation.
+ *
+ * @author Mario Cervera
+ */
+public class MaximumFlow {
+
+	private static final int GLOBAL_RELABEL_FREQUENCY = 6; // Global relabeling after about 6n+m work units
+
+	private int numVertices;
+	private int[] offsets; // Start of the residual edges of each vertex (plus one final sentinel)
+	private int[] head; // Target of each residual edge
+	private int[] reverse; // Position of the reverse of each residual edge
+	private long[] capacity; // Capacity of each residual edge (0 for the reverse edges)
+	private long[] residual; // Residual capacity of each residual edge
+
+	// Scratch arrays of the algorithms
+
+	private int[] level; // Dinic: distance from the source; push-relabel: label (height)
+	private int[] current; // Current arc of each vertex
+	private int[] queue; // Breadth-First Searches
+	private int[] path; // Dinic: edges of the augmenting path
+	private long[] excess; // Push-relabel: excess of each vertex
+	private int[] activeHead, activeNext; // Push-relabel: active vertices of each label (lists)
+	private int[] labelHead, labelNext, labelPrevious; // Push-relabel: all vertices of each label (lists)
+
+	/*
+	 * Constructor that builds the residual graph of a graph represented by means of adjacency lists
+	 */
+	public MaximumFlow(Graph graph) {
+
+		this(new CompactGraph(graph));
+	}
+
+	/*
+	 * Constructor that builds the residual graph of a graph represented in CSR format
+	 */
+	public MaximumFlow(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] graphOffsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		int m = targets.length;
+		int[] from = new int[m];
+		long[] edgeCapacity = new long[m];
+
+		for (int x = 1; x <= n; x++) {
+			for (int e = graphOffsets[x]; e < graphOffsets[x + 1]; e++) {
+				from[e] = x;
+				edgeCapacity[e] = weights[e];
+			}
+		}
+
+		build(n, from, targets, edgeCapacity);
+	}
+
+	/*
+	 * Constructor for a graph given as a list of edges: the i-th edge goes from vertex from[i] to
+	 * vertex to[i] (numbered from 1 to n) and has capacity capacity[i]
+	 */
+	public MaximumFlow(int n, int[] from, int[] to, long[] capacity) {
+
+		if (from.length != to.length || from.length != capacity.length)
+			throw new IllegalArgumentException("Arrays of different length");
+
+		build(n, from, to, capacity);
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	/*
+	 * Dinic's algorithm. It returns a minimum s-t cut: its weight is the value of a maximum flow,
+	 * and its first set contains the source (the vertices that cannot reach the sink in the residual
+	 * graph).
+	 */
+	public Cut dinic(int source, int sink) {
+
+		checkVertices(source, sink);
+		reset();
+
+		int n = numVertices;
+		long flow = 0;
+
+		while (distancesFromSource(source, sink)) {
+
+			// Find a blocking flow by means of augmenting paths between consecutive levels
+
+			for (int v = 1; v <= n; v++) {
+				current[v] = offsets[v];
+			}
+
+			int top = 0; // Number of edges of the path
+			int v = source;
+
+			while (true) {
+
+				if (v == sink) { // Augment the flow through the path
+
+					long delta = Long.MAX_VALUE;
+
+					for (int i = 0; i < top; i++) {
+						delta = Math.min(delta, residual[path[i]]);
+					}
+
+					int saturated = -1; // First saturated edge of the path
+
+					for (int i = 0; i < top; i++) {
+						residual[path[i]] -= delta;
+						residual[reverse[path[i]]] += delta;
+						if (saturated == -1 && residual[path[i]] == 0) saturated = i;
+					}
+
+					flow += delta;
+
+					// Retreat to the origin of the first saturated edge
+
+					top = saturated;
+					v = (top == 0) ? source : head[path[top - 1]];
+					continue;
+				}
+
+				// Advance through the current arc, skipping the edges that are not admissible
+
+				int end = offsets[v + 1];
+				int e = current[v];
+
+				while (e < end && (residual[e] == 0 || level[head[e]] != level[v] + 1)) e++;
+
+				current[v] = e;
+
+				if (e < end) {
+					path[top++] = e;
+					v = head[e];
+				}
+				else { // Dead end: retreat, and skip the edge that led here
+
+					if (v == source) break;
+
+					level[v] = -1;
+					top--;
+					v = (top == 0) ? source : head[path[top - 1]];
+					current[v]++;
+				}
+			}
+		}
+
+		return new Cut(flow, sourceSide(sink));
+	}
+
+	/*
+	 * Highest-label push-relabel algorithm with global relabeling and gap heuristics. It returns a
+	 * minimum s-t cut, as Dinic's algorithm (the same cut).
+	 */
+	public Cut pushRelabel(int source, int sink) {
+
+		checkVertices(source, sink);
+		reset();
+
+		int n = numVertices;
+
+		// Saturate the edges of the source
+
+		for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+
+			long delta = residual[e];
+
+			residual[e] = 0;
+			residual[reverse[e]] += delta;
+			excess[head[e]] += delta;
+			excess[source] -= delta;
+		}
+
+		int maxActive = globalRelabel(source, sink);
+		long work = 0;
+		long workLimit = (long) GLOBAL_RELABEL_FREQUENCY * n + offsets[n + 1];
+
+		// Discharge the active vertex with the highest label until there are none
+
+		while (maxActive >= 0) {
+
+			int v = activeHead[maxActive];
+
+			if (v == 0) {
+				maxActive--;
+				continue;
+			}
+
+			activeHead[maxActive] = activeNext[v];
+
+			// Push the excess through the admissible edges (to a vertex with label one lower)
+
+			int end = offsets[v + 1];
+
+			while (excess[v] > 0) {
+
+				int e = current[v];
+
+				for (; e < end; e++) {
+
+					int y = head[e];
+
+					if (residual[e] == 0 || level[y] != level[v] - 1) continue;
+
+					long delta = Math.min(excess[v], residual[e]);
+
+					if (excess[y] == 0 && y != sink) { // y becomes active
+						activeNext[y] = activeHead[level[y]];
+						activeHead[level[y]] = y;
+					}
+
+					residual[e] -= delta;
+					residual[reverse[e]] += delta;
+					excess[v] -= delta;
+					excess[y] += delta;
+
+					if (excess[v] == 0) break;
+				}
+
+				current[v] = e;
+
+				if (excess[v] == 0) break;
+
+				// Relabel v (or apply the gap heuristic if it was the last vertex with its label)
+
+				int oldLevel = level[v];
+
+				removeLabel(v);
+
+				if (labelHead[oldLevel] == 0) {
+					gap(oldLevel);
+					level[v] = n;
+					break;
+				}
+
+				int newLevel = n;
+
+				for (int f = offsets[v]; f < end; f++) {
+					if (residual[f] > 0) newLevel = Math.min(newLevel, level[head[f]] + 1);
+				}
+
+				work += end - offsets[v] + 12;
+				level[v] = newLevel;
+				current[v] = offsets[v];
+
+				if (newLevel >= n) break; // v cannot reach the sink
+
+				addLabel(v);
+				maxActive = newLevel; // v is the highest active vertex
+			}
+
+			if (work > workLimit) {
+				maxActive = globalRelabel(source, sink);
+				work = 0;
+			}
+		}
+
+		return new Cut(excess[sink], sourceSide(sink));
+	}
+
+	/*
+	 * This method builds the residual graph
+	 */
+	private void build(int n, int[] from, int[] to, long[] edgeCapacity) {
+
+		int m = from.length;
+
+		numVertices = n;
+		offsets = new int[n + 2]; // Vertices are numbered from 1 to N
+
+		// Every edge (x,y) adds a residual edge to x and another one to y
+
+		for (int i = 0; i < m; i++) {
+
+			if (from[i] < 1 || from[i] > n || to[i] < 1 || to[i] > n)
+				throw new IllegalArgumentException("Invalid edge (" + from[i] + "," + to[i] + ")");
+
+			if (edgeCapacity[i] < 0)
+				throw new IllegalArgumentException("Negative capacity: " + edgeCapacity[i]);
+
+			if (from[i] == to[i]) continue; // Self-loops never carry flow
+
+			offsets[from[i] + 1]++;
+			offsets[to[i] + 1]++;
+		}
+
+		for (int v = 1; v <= n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+
+		int size = offsets[n + 1];
+		int[] position = new int[n + 1];
+
+		head = new int[size];
+		reverse = new int[size];
+		capacity = new long[size];
+		residual = new long[size];
+
+		System.arraycopy(offsets, 0, position, 0, n + 1);
+
+		for (int i = 0; i < m; i++) {
+
+			int x = from[i];
+			int y = to[i];
+
+			if (x == y) continue;
+
+			int forward = position[x]++;
+			int backward = position[y]++;
+
+			head[forward] = y;
+			head[backward] = x;
+			reverse[forward] = backward;
+			reverse[backward] = forward;
+			capacity[forward] = edgeCapacity[i];
+		}
+
+		level = new int[n + 1];
+		current = new int[n + 1];
+		queue = new int[n + 1];
+		path = new int[n + 1];
+		excess = new long[n + 1];
+		activeHead = new int[n + 1];
+		activeNext = new int[n + 1];
+		labelHead = new int[n + 1];
+		labelNext = new int[n + 1];
+		labelPrevious = new int[n + 1];
+	}
+
+	private void checkVertices(int source, int sink) {
+
+		if (source < 1 || source > numVertices || sink < 1 || sink > numVertices)
+			throw new IllegalArgumentException("Invalid source or sink: " + source + ", " + sink);
+
+		if (source == sink)
+			throw new IllegalArgumentException("The source and the sink must be different");
+	}
+
+	/*
+	 * This method removes any previous flow
+	 */
+	private void reset() {
+
+		System.arraycopy(capacity, 0, residual, 0, capacity.length);
+
+		for (int v = 0; v <= numVertices; v++) {
+			excess[v] = 0;
+		}
+	}
+
+	/*
+	 * Dinic: Breadth-First Search from the source through the edges with residual capacity. It
+	 * returns true if the sink is reached.
+	 */
+	private boolean distancesFromSource(int source, int sink) {
+
+		for (int v = 0; v <= numVertices; v++) {
+			level[v] = -1;
+		}
+
+		int headOfQueue = 0;
+		int tail = 0;
+
+		queue[tail++] = source;
+		level[source] = 0;
+
+		while (headOfQueue < tail) {
+
+			int x = queue[headOfQueue++];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = head[e];
+
+				if (residual[e] > 0 && level[y] == -1) {
+					level[y] = level[x] + 1;
+					queue[tail++] = y;
+				}
+			}
+		}
+
+		return level[sink] != -1;
+	}
+
+	/*
+	 * Push-relabel: this method sets the label of every vertex to its distance to the sink in the
+	 * residual graph (n if it cannot reach it), and rebuilds the lists of vertices. It returns the
+	 * highest label of an active vertex (-1 if there are none).
+	 */
+	private int globalRelabel(int source, int sink) {
+
+		int n = numVertices;
+
+		for (int v = 0; v <= n; v++) {
+			level[v] = n;
+			activeHead[v] = 0;
+			labelHead[v] = 0;
+		}
+
+		// Backward Breadth-First Search from the sink: (y,x) has residual capacity
+
+		int headOfQueue = 0;
+		int tail = 0;
+
+		queue[tail++] = sink;
+		level[sink] = 0;
+
+		while (headOfQueue < tail) {
+
+			int x = queue[headOfQueue++];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = head[e];
+
+				if (level[y] == n && y != source && residual[reverse[e]] > 0) {
+					level[y] = level[x] + 1;
+					queue[tail++] = y;
+				}
+			}
+		}
+
+		// Rebuild the lists (the sink is not included)
+
+		int maxActive = -1;
+
+		for (int i = 1; i < tail; i++) {
+
+			int v = queue[i];
+
+			current[v] = offsets[v];
+			addLabel(v);
+
+			if (excess[v] > 0) {
+				activeNext[v] = activeHead[level[v]];
+				activeHead[level[v]] = v;
+				maxActive = Math.max(maxActive, level[v]);
+			}
+		}
+
+		return maxActive;
+	}
+
+	/*
+	 * Push-relabel: no vertex has label "gap" anymore, so the vertices with higher labels cannot
+	 * reach the sink. They are removed from the lists.
+	 */
+	private void gap(int gap) {
+
+		for (int l = gap + 1; l < numVertices && labelHead[l] != 0; l++) {
+
+			for (int v = labelHead[l]; v != 0; v = labelNext[v]) {
+				level[v] = numVertices;
+			}
+
+			labelHead[l] = 0;
+		}
+	}
+
+	private void addLabel(int v) {
+
+		int l = level[v];
+
+		labelPrevious[v] = 0;
+		labelNext[v] = labelHead[l];
+		if (labelHead[l] != 0) labelPrevious[labelHead[l]] = v;
+		labelHead[l] = v;
+	}
+
+	private void removeLabel(int v) {
+
+		if (labelPrevious[v] != 0) labelNext[labelPrevious[v]] = labelNext[v];
+		else labelHead[level[v]] = labelNext[v];
+
+		if (labelNext[v] != 0) labelPrevious[labelNext[v]] = labelPrevious[v];
+	}
+
+	/*
+	 * Returns the side of the minimum cut of every vertex: true for the vertices that cannot reach
+	 * the sink in the residual graph
+	 */
+	private boolean[] sourceSide(int sink) {
+
+		int n = numVertices;
+		boolean[] side = new boolean[n + 1];
+
+		for (int v = 1; v <= n; v++) {
+			side[v] = true;
+		}
+
+		int headOfQueue = 0;
+		int tail = 0;
+
+		queue[tail++] = sink;
+		side[sink] = false;
+
+		while (headOfQueue < tail) {
+
+			int x = queue[headOfQueue++];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = head[e];
+
+				if (side[y] && residual[reverse[e]] > 0) {
+					side[y] = false;
+					queue[tail++] = y;
+				}
+			}
+		}
+
+		return side;
+	}
+}
@@ -1,8 +1,11 @@
 package graphs;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import sets.DisjointSets;
 
 /**
  * This class provides an implementation of Karger's randomized algorithm for
@@ -17,68 +20,224 @@ import java.util.Random;
  * In each iteration of the algorithm, a new edge is selected at random. When this
  * edge is contracted, the number of vertices goes down by one. The algorithm
  * terminates when there are only two vertices remaining. The contraction of the
- * edges is implemented by means of a union-find data structure.
+ * edges is implemented by means of a union-find data structure (union by size and
+ * path halving), so each contraction takes nearly constant time and a whole trial
+ * runs in nearly O(m) time.
+ *
+ * The method "karger" runs many independent trials in parallel and keeps the best
+ * cut. The method "kargerStein" implements the recursive variant of Karger and Stein:
+ * it contracts the graph only down to about n/sqrt(2) vertices (while the probability
+ * of preserving the minimum cut is still at least 1/2) and then recurses twice on the
+ * contracted graph. A single trial finds a minimum cut with probability Omega(1/log n),
+ * instead of Omega(1/n^2), so far fewer contractions are needed in total.
+ *
+ * All these methods treat every edge as one unit (the weights are ignored), and the
+ * random choices are reproducible given the seed.
+ *
+ * This class also provides Stoer-Wagner's deterministic algorithm, which returns an
+ * exact minimum cut of a weighted undirected graph. It performs n-1 phases. Each phase
+ * adds the vertices one by one, always choosing the vertex most tightly connected to
+ * the vertices already added (a "maximum adjacency" order). The last vertex t of the
+ * order, separated from the rest, is a minimum cut between t and the previous vertex s,
+ * and then s and t are merged. The minimum of these n-1 "cuts of the phase" is a global
+ * minimum cut. The next vertex of each phase is selected with an indexed binary heap, so
+ * the algorithm runs in O(nm log n) time.
+ *
+ * For exact minimum cuts between two given vertices (s-t cuts), see MaximumFlow.
  * 
  * @author Mario Cervera
  */
 public class MinimumCut {
 
+	private static final int BRUTE_FORCE_LIMIT = 6; // Karger-Stein: exhaustive search below this size
+
 	/*
 	 * Karger's graph contraction algorithm: it returns a cut in the given connected
 	 * graph. If this method is invoked a quadratic number times, the probability of
 	 * failing to find a minimum cut is 1/n (being n the number of vertices of the graph)
 	 * 
-	 * The input graph is represented as a list of edges.
+	 * The input graph is represented as a list of edges, which is not modified.
 	 */
 	public static int graphContraction(List<Edge> edges, int n) {
 		
 		int m = edges.size(); // "n" is the number of vertices and "m" the number of edges
 		
-		// Initialize union-find data structure
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] order = new int[m];
 		
-		int[] unionFind = new int[n+1]; // Vertex "1" in index "1" and so on
-		
-		for(int i = 0; i <= n; i++) {
-			unionFind[i] = i;
+		for(int i = 0; i < m; i++) {
+			from[i] = edges.get(i).getX();
+			to[i] = edges.get(i).getY();
+			order[i] = i;
 		}
 		
-		// Obtain a random permutation of the list of edges
+		DisjointSets unionFind = new DisjointSets(n+1); // Vertex "1" in index "1" and so on
 		
-		long seed = System.nanoTime();
-		Collections.shuffle(edges, new Random(seed));
+		return (int) contract(from, to, order, unionFind, n, new SplittableRandom(System.nanoTime()));
+	}
+
+	/*
+	 * Karger's algorithm with the given number of independent trials, which run in parallel
+	 * on the common ForkJoinPool. It returns the best cut found.
+	 */
+	public static Cut karger(List<Edge> edges, int n, int trials, long seed) {
+
+		return runTrials(edges, n, trials, seed, false, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Karger's algorithm with parallel trials on the given pool
+	 */
+	public static Cut karger(List<Edge> edges, int n, int trials, long seed, ForkJoinPool pool) {
+
+		return runTrials(edges, n, trials, seed, false, pool);
+	}
+
+	/*
+	 * Karger-Stein's algorithm with the given number of independent trials, which run in
+	 * parallel on the common ForkJoinPool. About log^2(n) trials find a minimum cut with
+	 * high probability.
+	 */
+	public static Cut kargerStein(List<Edge> edges, int n, int trials, long seed) {
+
+		return runTrials(edges, n, trials, seed, true, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Karger-Stein's algorithm with parallel trials on the given pool
+	 */
+	public static Cut kargerStein(List<Edge> edges, int n, int trials, long seed, ForkJoinPool pool) {
+
+		return runTrials(edges, n, trials, seed, true, pool);
+	}
+
+	/*
+	 * This method runs independent trials in parallel. Each trial has its own random number
+	 * generator, derived from the seed and the number of the trial, so the result does not
+	 * depend on how the trials are scheduled. Ties are broken in favor of the lowest trial.
+	 */
+	private static Cut runTrials(List<Edge> edges, final int n, int trials, final long seed, final boolean recursive, ForkJoinPool pool) {
+
+		if(n < 2)
+			throw new IllegalArgumentException("A cut needs at least two vertices");
+
+		if(trials < 1)
+			throw new IllegalArgumentException("At least one trial is needed");
+
+		final int m = edges.size();
+		final int[] from = new int[m];
+		final int[] to = new int[m];
+
+		for(int i = 0; i < m; i++) {
+			from[i] = edges.get(i).getX();
+			to[i] = edges.get(i).getY();
+		}
+
+		// Karger-Stein's recursion numbers the vertices from 0 to n-1 (these arrays are only read)
+
+		final int[] x = recursive ? new int[m] : null;
+		final int[] y = recursive ? new int[m] : null;
+		final long[] w = recursive ? new long[m] : null;
+
+		for(int i = 0; recursive && i < m; i++) {
+			x[i] = from[i] - 1;
+			y[i] = to[i] - 1;
+			w[i] = 1;
+		}
+
+		final BestCut best = new BestCut();
+
+		// Several trials per task (about four tasks per thread), so that they share the scratch memory
+
+		int grain = Math.max(1, trials / (4 * pool.getParallelism()));
+
+		ParallelFor.run(pool, 0, trials, grain, (first, last) -> {
+
+			// Scratch memory shared by the trials of this task
+
+			int[] order = new int[m];
+			for(int i = 0; i < m; i++) order[i] = i;
+
+			DisjointSets unionFind = new DisjointSets(n+1);
+
+			for(int trial = first; trial < last; trial++) {
+
+				SplittableRandom random = new SplittableRandom(seed + trial * 0x9E3779B97F4A7C15L);
+
+				if(recursive) {
+
+					boolean[] side = new boolean[n];
+					long weight = kargerStein(x, y, w, m, n, side, random);
+
+					boolean[] result = new boolean[n+1];
+					System.arraycopy(side, 0, result, 1, n);
+
+					best.offer(weight, trial, result);
+				}
+				else {
+
+					long weight = contract(from, to, order, unionFind, n, random);
+
+					if(best.improves(weight, trial)) {
+
+						boolean[] side = new boolean[n+1];
+						int root = unionFind.find(1);
+
+						for(int v = 1; v <= n; v++) {
+							side[v] = unionFind.find(v) == root;
+						}
+
+						best.offer(weight, trial, side);
+					}
+				}
+			}
+		});
+
+		return new Cut(best.weight, best.side);
+	}
+
+	/*
+	 * A single contraction trial on vertices 1 to n. The edges are selected in random order
+	 * by means of an incremental Fisher-Yates shuffle of "order", which stops as soon as only
+	 * two vertices remain. It returns the number of edges between the two remaining vertices,
+	 * which can be found in "unionFind". If the graph is not connected, contraction stops with
+	 * more than two vertices and the cut separates the vertex 1 from the rest with no edges.
+	 */
+	private static long contract(int[] from, int[] to, int[] order, DisjointSets unionFind, int n, SplittableRandom random) {
+
+		int m = from.length;
+
+		unionFind.reset();
 		
 		// Iterate until only two vertices remain
 		
 		int remainingVertices = n;
 		int nextEdge = 0;
 		
-		while(remainingVertices > 2) {
+		while(remainingVertices > 2 && nextEdge < m) {
 			
-			Edge edge = edges.get(nextEdge);
-			int x = edge.getX();
-			int y = edge.getY();
+			int j = nextEdge + random.nextInt(m - nextEdge);
+			int edge = order[j];
+			order[j] = order[nextEdge];
+			order[nextEdge] = edge;
+			nextEdge++;
 			
-			// Make sure that the edge is not a self-loop
+			// Contraction (self-loops are detected by the union operation)
 			
-			if(unionFind[x] != unionFind[y]) {
-				
-				// Perform contraction
-				
-				contract(unionFind, unionFind[x], unionFind[y]);
+			if(unionFind.union(from[edge], to[edge])) {
 				remainingVertices--;
 			}
-			
-			nextEdge++;
 		}
 		
 		// Count the number of edges in the cut
 		
+		if(remainingVertices > 2) return 0;
+
 		int counter = 0;
 		
 		for(int i = 0; i < m; i++) {
-			Edge edge = edges.get(i);
-			
-			if(unionFind[edge.getX()] != unionFind[edge.getY()]) {
+			if(unionFind.find(from[i]) != unionFind.find(to[i])) {
 				counter++;
 			}
 		}
@@ -86,14 +245,345 @@ public class MinimumCut {
 		return counter;
 	}
 	
-	private static void contract(int[] unionFind, int x, int y) {
+	/*
+	 * Karger-Stein's recursion on a graph with k vertices (numbered from 0 to k-1) and m edges.
+	 * Parallel edges are merged into a single edge whose weight is their multiplicity, so the
+	 * graph of every recursive call has O(k^2) edges. Contracting a random edge of the original
+	 * multigraph is simulated by giving each edge an exponentially distributed arrival time with
+	 * rate equal to its weight and contracting the edges in order of arrival. It returns the
+	 * weight of the best cut found and stores its partition in "side".
+	 */
+	private static long kargerStein(int[] from, int[] to, long[] weight, int m, int k, boolean[] side, SplittableRandom random) {
 		
-		int len = unionFind.length;
+		if(m == 0) { // No edges: any partition is a cut of weight 0
+			side[0] = true;
+			return 0;
+		}
 		
-		for(int i = 1; i < len; i++) {
+		if(k <= BRUTE_FORCE_LIMIT) {
+			return bruteForce(from, to, weight, m, k, side);
+		}
 			
-			if(unionFind[i] == x) {
-				unionFind[i] = y;
+		int target = (int) Math.ceil(1 + k / Math.sqrt(2));
+
+		long bestWeight = Long.MAX_VALUE;
+		long[] keys = new long[m];
+
+		for(int branch = 0; branch < 2; branch++) {
+
+			// Arrival order of the edges. Each key packs the arrival time (as the bits of a positive
+			// float, which preserve the order) and the index of the edge.
+
+			for(int i = 0; i < m; i++) {
+				float time = (float) (-Math.log(1.0 - random.nextDouble()) / weight[i]);
+				keys[i] = ((long) Float.floatToIntBits(time) << 32) | i;
+			}
+
+			Arrays.sort(keys);
+
+			// Contract down to "target" vertices
+
+			DisjointSets unionFind = new DisjointSets(k);
+			int remainingVertices = k;
+
+			for(int i = 0; i < m && remainingVertices > target; i++) {
+				int edge = (int) keys[i];
+				if(unionFind.union(from[edge], to[edge])) {
+					remainingVertices--;
+				}
+			}
+
+			if(remainingVertices > target) { // Not connected: the component of vertex 0 is a cut of weight 0
+
+				int root = unionFind.find(0);
+
+				for(int v = 0; v < k; v++) {
+					side[v] = unionFind.find(v) == root;
+				}
+				return 0;
+			}
+
+			// Renumber the remaining vertices, remove the self-loops and merge the parallel edges
+
+			int[] label = new int[k];
+			int t = 0;
+
+			for(int v = 0; v < k; v++) {
+				if(unionFind.find(v) == v) label[v] = t++;
+			}
+
+			// The edges are grouped by their lowest endpoint (counting sort), and the last contracted
+			// edge of every highest endpoint is remembered, so no key has to pack both endpoints
+
+			int[] start = new int[t + 1];
+			int[] order = new int[m];
+			int numPairs = 0;
+
+			for(int i = 0; i < m; i++) {
+				int x = label[unionFind.find(from[i])];
+				int y = label[unionFind.find(to[i])];
+				if(x != y) {
+					start[Math.min(x, y) + 1]++;
+					numPairs++;
+				}
+			}
+
+			for(int v = 0; v < t; v++) {
+				start[v + 1] += start[v];
+			}
+
+			int[] next = Arrays.copyOf(start, t);
+
+			for(int i = 0; i < m; i++) {
+				int x = label[unionFind.find(from[i])];
+				int y = label[unionFind.find(to[i])];
+				if(x != y) {
+					order[next[Math.min(x, y)]++] = i;
+				}
+			}
+
+			int[] contractedFrom = new int[numPairs];
+			int[] contractedTo = new int[numPairs];
+			long[] contractedWeight = new long[numPairs];
+			int[] lastEdge = new int[t];
+			int contractedEdges = 0;
+
+			Arrays.fill(lastEdge, -1);
+
+			for(int x = 0; x < t; x++) {
+
+				int firstEdge = contractedEdges; // First contracted edge whose lowest endpoint is x
+
+				for(int j = start[x]; j < start[x + 1]; j++) {
+
+					int i = order[j];
+					int y = label[unionFind.find(from[i])] ^ label[unionFind.find(to[i])] ^ x;
+
+					if(lastEdge[y] >= firstEdge) { // Parallel to an edge (x,y) that was already added
+						contractedWeight[lastEdge[y]] += weight[i];
+					}
+					else {
+						contractedFrom[contractedEdges] = x;
+						contractedTo[contractedEdges] = y;
+						contractedWeight[contractedEdges] = weight[i];
+						lastEdge[y] = contractedEdges++;
+					}
+				}
+			}
+
+			// Recursion
+
+			boolean[] contractedSide = new boolean[t];
+			long cutWeight = kargerStein(contractedFrom, contractedTo, contractedWeight, contractedEdges, t, contractedSide, random);
+
+			if(cutWeight < bestWeight) {
+
+				bestWeight = cutWeight;
+
+				for(int v = 0; v < k; v++) {
+					side[v] = contractedSide[label[unionFind.find(v)]];
+				}
+			}
+		}
+
+		return bestWeight;
+	}
+
+	/*
+	 * Exhaustive search of the minimum cut of a small graph. Vertex 0 is always in the first set,
+	 * so each cut is enumerated once.
+	 */
+	private static long bruteForce(int[] from, int[] to, long[] weight, int m, int k, boolean[] side) {
+
+		long bestWeight = Long.MAX_VALUE;
+		int bestSet = 0;
+
+		for(int set = 0; set < (1 << (k - 1)) - 1; set++) { // The second set must not be empty
+
+			int members = (set << 1) | 1; // Bit v --> vertex v in the first set
+			long cutWeight = 0;
+
+			for(int i = 0; i < m; i++) {
+				if(((members >>> from[i]) & 1) != ((members >>> to[i]) & 1)) cutWeight += weight[i];
+			}
+
+			if(cutWeight < bestWeight) {
+				bestWeight = cutWeight;
+				bestSet = members;
+			}
+		}
+
+		for(int v = 0; v < k; v++) {
+			side[v] = ((bestSet >>> v) & 1) != 0;
+		}
+
+		return bestWeight;
+	}
+
+	/*
+	 * Stoer-Wagner's algorithm. It returns a minimum cut of a connected, weighted, undirected
+	 * graph (every edge must be stored in both directions). Weights must be non-negative.
+	 */
+	public static Cut stoerWagner(Graph graph) {
+
+		int n = graph.getNumVertices();
+		EdgeNode[] edges = graph.getEdges();
+
+		if(n < 2)
+			throw new IllegalArgumentException("A cut needs at least two vertices");
+
+		// Adjacency lists as chains of half-edges, which can be concatenated in O(1) time
+		// when two vertices are merged
+
+		int m = 0;
+
+		for(int x = 1; x <= n; x++) {
+			for(EdgeNode node = edges[x]; node != null; node = node.getNext()) {
+				m++;
+			}
+		}
+
+		int[] head = new int[n+1];
+		int[] tail = new int[n+1];
+		int[] nextEdge = new int[m];
+		int[] target = new int[m];
+		long[] weight = new long[m];
+
+		for(int x = 1, e = 0; x <= n; x++) {
+
+			head[x] = -1;
+			tail[x] = -1;
+
+			for(EdgeNode node = edges[x]; node != null; node = node.getNext(), e++) {
+
+				target[e] = node.getY();
+				weight[e] = node.getWeight();
+				nextEdge[e] = -1;
+
+				if(head[x] == -1) head[x] = e;
+				else nextEdge[tail[x]] = e;
+				tail[x] = e;
+			}
+		}
+
+		// Merged vertices: "representative" points to the vertex that absorbed each vertex, and
+		// the vertices merged into each vertex form a linked list
+
+		int[] representative = new int[n+1];
+		int[] nextMember = new int[n+1];
+		int[] lastMember = new int[n+1];
+		int[] active = new int[n];
+
+		for(int v = 1; v <= n; v++) {
+			representative[v] = v;
+			nextMember[v] = -1;
+			lastMember[v] = v;
+			active[v-1] = v;
+		}
+
+		int numActive = n;
+
+		IndexedMinHeap heap = new IndexedMinHeap(n+1); // Keys are negated connection weights
+		long bestWeight = Long.MAX_VALUE;
+		boolean[] side = new boolean[n+1];
+
+		for(int phase = 1; phase < n; phase++) {
+
+			// Maximum adjacency order
+
+			for(int i = 0; i < numActive; i++) {
+				heap.insert(active[i], 0);
+			}
+
+			int s = -1;
+			int t = -1;
+			long cutOfPhase = 0;
+
+			while(!heap.isEmpty()) {
+
+				cutOfPhase = -heap.minKey();
+				s = t;
+				t = heap.extractMin();
+
+				for(int e = head[t]; e != -1; e = nextEdge[e]) {
+
+					int y = find(representative, target[e]);
+
+					if(y != t && heap.contains(y)) {
+						heap.decreaseKey(y, heap.getKey(y) - weight[e]);
+					}
+				}
+			}
+
+			// The cut of the phase separates the vertices merged into t from the rest
+
+			if(cutOfPhase < bestWeight) {
+
+				bestWeight = cutOfPhase;
+
+				for(int v = 1; v <= n; v++) {
+					side[v] = false;
+				}
+				for(int v = t; v != -1; v = nextMember[v]) {
+					side[v] = true;
+				}
+			}
+
+			// Merge t into s
+
+			representative[t] = s;
+
+			if(head[t] != -1) {
+				if(head[s] == -1) head[s] = head[t];
+				else nextEdge[tail[s]] = head[t];
+				tail[s] = tail[t];
+			}
+
+			nextMember[lastMember[s]] = t;
+			lastMember[s] = lastMember[t];
+
+			for(int i = 0; i < numActive; i++) {
+				if(active[i] == t) {
+					active[i] = active[--numActive];
+					break;
+				}
+			}
+		}
+
+		return new Cut(bestWeight, side);
+	}
+
+	/*
+	 * This method returns the vertex that currently represents a (possibly merged) vertex.
+	 * It implements the "path halving" technique.
+	 */
+	private static int find(int[] representative, int v) {
+
+		while(representative[v] != v) {
+			representative[v] = representative[representative[v]];
+			v = representative[v];
+		}
+		return v;
+	}
+
+	/*
+	 * The best cut found by the parallel trials
+	 */
+	private static class BestCut {
+
+		long weight = Long.MAX_VALUE;
+		int trial = Integer.MAX_VALUE;
+		boolean[] side;
+
+		synchronized boolean improves(long w, int t) {
+			return w < weight || (w == weight && t < trial);
+		}
+
+		synchronized void offer(long w, int t, boolean[] s) {
+			if(improves(w, t)) {
+				weight = w;
+				trial = t;
+				side = s;
 			}
 		}
 	}
@@ -1,34 +1,78 @@
 package graphs;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import sets.ConcurrentDisjointSets;
+import sets.DisjointSets;
+
 /**
- * This class provides an implementation of Prim's algorithm, which computes Minimum
- * Spanning Trees in connected weighted graphs. Given a particular starting vertex s,
- * the algorithm finds a subset of the edges that connect all of the vertices together,
- * without any cycles and with the minimum total edge weight.
+ * This class provides implementations of Prim's and Kruskal's algorithms, which compute Minimum
+ * Spanning Trees in connected weighted graphs. A Minimum Spanning Tree is a subset of the edges
+ * that connect all of the vertices together, without any cycles and with the minimum total edge
+ * weight.
  * 
- * This implementation of Prim's algorithm runs in O(nm) time, where n is the number
- * of vertices of the graph and m is the number of edges. Faster running times can be
- * achieved by improving this algorithm by means of a heap data structure.
+ * Given a particular starting vertex s, Prim's algorithm grows a single tree from s by repeatedly
+ * adding the cheapest edge that leaves the tree. The vertex closest to the tree is selected by means
+ * of an indexed heap, so this implementation runs in O(m log n) time, where n is the number of
+ * vertices of the graph and m is the number of edges.
+ *
+ * Kruskal's algorithm sorts the edges by weight and adds every edge that does not close a cycle,
+ * which is checked with a union-find data structure. It also runs in O(m log n) time, but it only
+ * sorts a primitive array, so it tends to be faster on sparse graphs, whereas Prim's algorithm tends
+ * to be faster on dense ones. On graphs that are not connected, Kruskal's algorithm returns a
+ * Minimum Spanning Forest.
+ *
+ * Boruvka's algorithm works in rounds. In every round, each tree of the forest (initially, each
+ * vertex) selects its lightest outgoing edge, and all the selected edges are added at once, which at
+ * least halves the number of trees. Therefore, it needs O(log n) rounds of O(m) work, and the work of
+ * a round can be split among many threads: the edges are scanned in parallel, the lightest edge of
+ * each tree is kept with an atomic "minimum" operation, and the trees are joined with a lock-free
+ * union-find structure. Ties are broken by the position of the edge, so all the threads agree on a
+ * single Minimum Spanning Forest. Edges inside a tree are discarded after each round.
+ *
+ * All the algorithms in this class expect undirected graphs (every edge stored in both directions).
  * 
  * @author Mario Cervera
  */
 public class MinimumSpanningTree {
 
+	private static final int VERTEX_GRAIN = 1024; // Vertices per task (Boruvka's algorithm)
+	private static final int EDGE_GRAIN = 4096; // Edges per task (Boruvka's algorithm)
+
 	/*
 	 * Prim's algorithm. It returns an array that contains the edges that comprise the
 	 * Minimum Spanning Tree of the graph.
 	 */
 	public static Edge[] prim(Graph graph, int start) {
 		
+		return toEdgeArray(primTree(graph, start), graph.getNumVertices());
+	}
+
+	/*
+	 * Prim's algorithm on a graph represented in CSR format
+	 */
+	public static Edge[] prim(CompactGraph graph, int start) {
+
+		return toEdgeArray(primTree(graph, start), graph.getNumVertices());
+	}
+
+	/*
+	 * Prim's algorithm. It returns the Minimum Spanning Tree as parallel primitive arrays.
+	 * Only the vertices that are reachable from the starting vertex are added to the tree.
+	 */
+	public static SpanningTree primTree(Graph graph, int start) {
+
 		// Initialize variables
 
 		int n = graph.getNumVertices();
 		EdgeNode[] edges = graph.getEdges();
-		Edge[] mst = new Edge[n-1];
 		
 		int[] distance = new int[n + 1];
 		boolean[] inTree = new boolean[n + 1];
 		int[] parent = new int[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
 
 		for(int i = 0; i <= n; i++) {
 			distance[i] = Integer.MAX_VALUE;
@@ -36,19 +80,34 @@ public class MinimumSpanningTree {
 			parent[i] = -1;
 		}
 
+		int[] from = new int[Math.max(n - 1, 0)];
+		int[] to = new int[Math.max(n - 1, 0)];
+		int[] weight = new int[Math.max(n - 1, 0)];
+		int mstEdgeCounter = 0;
+
 		// The distance to the starting vertex from the starting vertex is 0
 
 		distance[start] = 0;
+		heap.insert(start, 0);
 
 		// While there are vertices not yet added to the minimum spanning tree ...
 
-		int node = start;
-		int mstEdgeCounter = 0;
+		while(!heap.isEmpty()) {
 
-		while(!inTree[node]) {
+			// Select minimum distance
 
+			int node = heap.extractMin();
 			inTree[node] = true;
 
+			// Update Minimum Spanning Tree arrays
+
+			if(node != start) {
+				from[mstEdgeCounter] = parent[node];
+				to[mstEdgeCounter] = node;
+				weight[mstEdgeCounter] = distance[node];
+				mstEdgeCounter++;
+			}
+
 			// Iterate outgoing edges of current vertex to update distances
 
 			EdgeNode adjacentNode = edges[node];
@@ -56,39 +115,390 @@ public class MinimumSpanningTree {
 			while(adjacentNode != null) {
 
 				// Unlike Dijkstra's algorithm, distance only considers the current edge
+				int y = adjacentNode.getY();
 				int w = adjacentNode.getWeight();
-				int currentDistance = distance[adjacentNode.getY()];
-				int newDistance = w;
 
-				if(!inTree[adjacentNode.getY()] && currentDistance > newDistance) {
-					distance[adjacentNode.getY()] = newDistance;
-					parent[adjacentNode.getY()] = node;
+				if(!inTree[y] && distance[y] > w) {
+
+					if(heap.contains(y)) heap.decreaseKey(y, w);
+					else heap.insert(y, w);
+
+					distance[y] = w;
+					parent[y] = node;
 				}
 
 				adjacentNode = adjacentNode.getNext();
 			}
+		}
 
-			// Select minimum distance
+		return new SpanningTree(from, to, weight, mstEdgeCounter);
+	}
+
+	/*
+	 * Prim's algorithm on a graph represented in CSR format. It returns the Minimum Spanning Tree
+	 * as parallel primitive arrays.
+	 */
+	public static SpanningTree primTree(CompactGraph graph, int start) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		int[] distance = new int[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		int[] parent = new int[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+		for(int i = 0; i <= n; i++) {
+			distance[i] = Integer.MAX_VALUE;
+			inTree[i] = false;
+			parent[i] = -1;
+		}
+
+		int[] from = new int[Math.max(n - 1, 0)];
+		int[] to = new int[Math.max(n - 1, 0)];
+		int[] weight = new int[Math.max(n - 1, 0)];
+		int mstEdgeCounter = 0;
 
-			node = start;
+		// The distance to the starting vertex from the starting vertex is 0
 
-			int minDist = Integer.MAX_VALUE;
+		distance[start] = 0;
+		heap.insert(start, 0);
 
-			for(int i = 1; i <= n; i++) {
-				if(!inTree[i] && distance[i] < minDist) {
-					minDist = distance[i];
-					node = i;
+		// While there are vertices not yet added to the minimum spanning tree ...
+
+		while(!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			inTree[node] = true;
+
+			if(node != start) {
+				from[mstEdgeCounter] = parent[node];
+				to[mstEdgeCounter] = node;
+				weight[mstEdgeCounter] = distance[node];
+				mstEdgeCounter++;
+			}
+
+			// Iterate outgoing edges of current vertex to update distances
+
+			for(int e = offsets[node]; e < offsets[node + 1]; e++) {
+
+				int y = targets[e];
+				int w = weights[e];
+
+				if(!inTree[y] && distance[y] > w) {
+
+					if(heap.contains(y)) heap.decreaseKey(y, w);
+					else heap.insert(y, w);
+
+					distance[y] = w;
+					parent[y] = node;
 				}
 			}
+		}
 			
-			// Update Minimum Spanning Tree array
+		return new SpanningTree(from, to, weight, mstEdgeCounter);
+	}
 			
-			if(minDist != Integer.MAX_VALUE) {
-				mst[mstEdgeCounter] = new Edge(parent[node], node, minDist);
+	/*
+	 * Kruskal's algorithm. Every undirected edge of the graph is considered once (as the pair x < y).
+	 */
+	public static SpanningTree kruskal(Graph graph) {
+
+		return kruskal(new CompactGraph(graph));
+	}
+
+	/*
+	 * Kruskal's algorithm on a graph represented in CSR format
+	 */
+	public static SpanningTree kruskal(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		// Collect each undirected edge once
+
+		int m = 0;
+
+		for(int x = 1; x <= n; x++) {
+			for(int e = offsets[x]; e < offsets[x + 1]; e++) {
+				if(x < targets[e]) m++;
+			}
+		}
+
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] weight = new int[m];
+		int i = 0;
+
+		for(int x = 1; x <= n; x++) {
+			for(int e = offsets[x]; e < offsets[x + 1]; e++) {
+				if(x < targets[e]) {
+					from[i] = x;
+					to[i] = targets[e];
+					weight[i] = weights[e];
+					i++;
+				}
+			}
+		}
+
+		return kruskal(n, from, to, weight);
+	}
+
+	/*
+	 * Kruskal's algorithm on an undirected graph given as an edge list: the i-th edge connects
+	 * vertices from[i] and to[i] and has weight weight[i]. Vertices are numbered from 1 to n.
+	 */
+	public static SpanningTree kruskal(int n, int[] from, int[] to, int[] weight) {
+
+		int m = from.length;
+
+		// Sort the edges by weight. Each key packs the weight (high 32 bits) and the index of the
+		// edge (low 32 bits), so a primitive array can be sorted without any comparator.
+
+		long[] keys = new long[m];
+
+		for(int i = 0; i < m; i++) {
+			keys[i] = ((long) weight[i] << 32) | i;
+		}
+
+		Arrays.sort(keys);
+
+		// Add every edge that connects two different trees of the forest
+
+		DisjointSets components = new DisjointSets(n + 1); // Vertex "1" in index "1" and so on
+
+		int[] mstFrom = new int[Math.max(n - 1, 0)];
+		int[] mstTo = new int[Math.max(n - 1, 0)];
+		int[] mstWeight = new int[Math.max(n - 1, 0)];
+		int mstEdgeCounter = 0;
+
+		for(int k = 0; k < m && mstEdgeCounter < n - 1; k++) {
+
+			int i = (int) keys[k];
+
+			if(components.union(from[i], to[i])) {
+				mstFrom[mstEdgeCounter] = from[i];
+				mstTo[mstEdgeCounter] = to[i];
+				mstWeight[mstEdgeCounter] = weight[i];
 				mstEdgeCounter++;
 			}
 		}
 
+		return new SpanningTree(mstFrom, mstTo, mstWeight, mstEdgeCounter);
+	}
+
+	/*
+	 * Boruvka's algorithm on the common ForkJoinPool. Every undirected edge of the graph is
+	 * considered once (as the pair x < y).
+	 */
+	public static SpanningTree boruvka(Graph graph) {
+
+		return boruvka(new CompactGraph(graph));
+	}
+
+	/*
+	 * Boruvka's algorithm on a graph represented in CSR format, on the common ForkJoinPool
+	 */
+	public static SpanningTree boruvka(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		// Collect each undirected edge once
+
+		int m = 0;
+
+		for(int x = 1; x <= n; x++) {
+			for(int e = offsets[x]; e < offsets[x + 1]; e++) {
+				if(x < targets[e]) m++;
+			}
+		}
+
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] weight = new int[m];
+		int i = 0;
+
+		for(int x = 1; x <= n; x++) {
+			for(int e = offsets[x]; e < offsets[x + 1]; e++) {
+				if(x < targets[e]) {
+					from[i] = x;
+					to[i] = targets[e];
+					weight[i] = weights[e];
+					i++;
+				}
+			}
+		}
+
+		return boruvka(n, from, to, weight, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Boruvka's algorithm on an undirected graph given as an edge list (as in Kruskal's algorithm),
+	 * using the threads of the given pool. It returns a Minimum Spanning Forest: one tree for each
+	 * connected component of the graph. The edges of the forest are sorted by their position in
+	 * the edge list.
+	 */
+	public static SpanningTree boruvka(int n, final int[] from, final int[] to, final int[] weight, ForkJoinPool pool) {
+
+		// Initialize variables
+
+		final int m = from.length;
+		final ConcurrentDisjointSets components = new ConcurrentDisjointSets(n + 1); // Vertex "1" in index "1" and so on
+		final AtomicLongArray lightest = new AtomicLongArray(n + 1); // Lightest outgoing edge of each tree
+		final boolean[] inForest = new boolean[m];
+
+		int[] active = new int[m]; // Edges that may still join two trees
+		int numActive = m;
+
+		for(int i = 0; i < m; i++) {
+			active[i] = i;
+		}
+
+		while(numActive > 0) {
+
+			final int[] edges = active;
+			final int size = numActive;
+
+			// Select the lightest outgoing edge of every tree. Each key packs the weight (high
+			// 32 bits) and the index of the edge (low 32 bits), so ties are broken by index.
+
+			ParallelFor.run(pool, 0, n + 1, VERTEX_GRAIN, (first, last) -> {
+				for(int v = first; v < last; v++) {
+					lightest.set(v, Long.MAX_VALUE);
+				}
+			});
+
+			ParallelFor.run(pool, 0, size, EDGE_GRAIN, (first, last) -> {
+				for(int k = first; k < last; k++) {
+
+					int i = edges[k];
+					int root1 = components.find(from[i]);
+					int root2 = components.find(to[i]);
+
+					if(root1 != root2) {
+						long key = ((long) weight[i] << 32) | i;
+						atomicMin(lightest, root1, key);
+						atomicMin(lightest, root2, key);
+					}
+				}
+			});
+
+			// Add the selected edges. An edge selected by both of its trees is only added once.
+
+			ParallelFor.run(pool, 1, n + 1, VERTEX_GRAIN, (first, last) -> {
+				for(int v = first; v < last; v++) {
+
+					long key = lightest.get(v);
+
+					if(key != Long.MAX_VALUE) {
+						int i = (int) key;
+						if(components.union(from[i], to[i])) inForest[i] = true;
+					}
+				}
+			});
+
+			// Discard the edges that are now inside a tree
+
+			numActive = compact(edges, size, components, from, to, pool);
+		}
+
+		// Collect the forest
+
+		int numEdges = 0;
+
+		for(int i = 0; i < m; i++) {
+			if(inForest[i]) numEdges++;
+		}
+
+		int[] mstFrom = new int[numEdges];
+		int[] mstTo = new int[numEdges];
+		int[] mstWeight = new int[numEdges];
+		int k = 0;
+
+		for(int i = 0; i < m; i++) {
+			if(inForest[i]) {
+				mstFrom[k] = from[i];
+				mstTo[k] = to[i];
+				mstWeight[k] = weight[i];
+				k++;
+			}
+		}
+
+		return new SpanningTree(mstFrom, mstTo, mstWeight, numEdges);
+	}
+
+	/*
+	 * Lowers the value in a position of the array to a given key (if the key is smaller)
+	 */
+	private static void atomicMin(AtomicLongArray array, int position, long key) {
+
+		long old = array.get(position);
+
+		while(key < old && !array.compareAndSet(position, old, key)) {
+			old = array.get(position);
+		}
+	}
+
+	/*
+	 * This method moves the edges that join two different trees to the beginning of the array, and
+	 * returns how many there are. The array is split in blocks: each block counts its edges, and a
+	 * prefix sum of the counts indicates where each block must copy them.
+	 */
+	private static int compact(final int[] edges, int size, final ConcurrentDisjointSets components, final int[] from, final int[] to, ForkJoinPool pool) {
+
+		final int numBlocks = (size + EDGE_GRAIN - 1) / EDGE_GRAIN;
+		final int[] count = new int[numBlocks + 1];
+		final int[] kept = new int[size];
+		final int end = size;
+
+		ParallelFor.run(pool, 0, numBlocks, 1, (first, last) -> {
+			for(int b = first; b < last; b++) {
+
+				int pos = b * EDGE_GRAIN;
+				int limit = Math.min(end, pos + EDGE_GRAIN);
+
+				for(int k = pos; k < limit; k++) {
+					int i = edges[k];
+					if(components.find(from[i]) != components.find(to[i])) kept[pos + count[b + 1]++] = i;
+				}
+			}
+		});
+
+		for(int b = 0; b < numBlocks; b++) {
+			count[b + 1] += count[b];
+		}
+
+		ParallelFor.run(pool, 0, numBlocks, 1, (first, last) -> {
+			for(int b = first; b < last; b++) {
+				int blockSize = count[b + 1] - count[b];
+				System.arraycopy(kept, b * EDGE_GRAIN, edges, count[b], blockSize);
+			}
+		});
+
+		return count[numBlocks];
+	}
+
+	/*
+	 * This method converts a spanning tree into an array of n-1 Edge objects. If the tree does not
+	 * span the whole graph, the last positions of the array are null.
+	 */
+	private static Edge[] toEdgeArray(SpanningTree tree, int n) {
+
+		Edge[] mst = new Edge[n-1];
+
+		for(int i = 0; i < tree.getNumEdges(); i++) {
+			mst[i] = new Edge(tree.getFrom()[i], tree.getTo()[i], tree.getWeight()[i]);
+		}
+
 		return mst;
 	}
 }
@@ -0,0 +1,260 @@
+package graphs;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class computes hop distances (number of edges) from many starting vertices of an unweighted
+ * graph represented in CSR format. It implements the multi-source Breadth-First Search (MS-BFS) of Then
+ * et al. (2014): up to 64 searches, one per bit of a long, are run at the same time. Every vertex has
+ * three bitmasks: the searches that have seen it, the searches for which it is in the current frontier
+ * and the searches for which it will be in the next one. When a vertex is expanded, its adjacency list
+ * is scanned once for all the searches of its frontier mask, so searches that reach the same vertices
+ * at the same level share the edge scans.
+ *
+ * Groups of 64 starting vertices ("batches") are independent, so they are run in parallel on the
+ * threads of a ForkJoinPool. The results can be obtained as full distance rows (one per starting
+ * vertex) or as aggregated statistics (eccentricity and closeness centrality), which only take O(n)
+ * memory. Graphs represented by means of adjacency lists can be converted with new CompactGraph(graph).
+ *
+ * @author Mario Cervera
+ */
+public class MultiSourceBreadthFirstSearch {
+
+	private static final int LANES = 64; // Searches per batch (bits of a long)
+	private static final int TASKS_PER_THREAD = 4; // Load balancing
+
+	/*
+	 * This method returns the distances from the given starting vertices on the common ForkJoinPool
+	 */
+	public static int[][] distances(CompactGraph graph, int[] sources) {
+
+		return distances(graph, sources, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * This method returns the distances from the given starting vertices: position [i][v] of the
+	 * result is the number of edges of a shortest path from sources[i] to v (-1 if v is not
+	 * reachable from sources[i]).
+	 */
+	public static int[][] distances(CompactGraph graph, int[] sources, ForkJoinPool pool) {
+
+		int n = graph.getNumVertices();
+		int[][] rows = new int[sources.length][n + 1];
+
+		for (int i = 0; i < sources.length; i++) {
+			for (int v = 0; v <= n; v++) {
+				rows[i][v] = -1;
+			}
+		}
+
+		run(graph, sources, rows, null, null, null, pool);
+
+		return rows;
+	}
+
+	/*
+	 * This method computes aggregated statistics of the searches from the given starting vertices on
+	 * the common ForkJoinPool
+	 */
+	public static void statistics(CompactGraph graph, int[] sources, int[] eccentricity, long[] totalDistance, int[] numReached) {
+
+		statistics(graph, sources, eccentricity, totalDistance, numReached, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * This method computes aggregated statistics of the searches from the given starting vertices.
+	 * Position i of each array receives the statistic of the search from sources[i]: the largest
+	 * distance to a reachable vertex (eccentricity), the sum of the distances to all reachable
+	 * vertices and the number of reachable vertices (including the starting vertex). Any of the
+	 * arrays can be null.
+	 */
+	public static void statistics(CompactGraph graph, int[] sources, int[] eccentricity, long[] totalDistance, int[] numReached, ForkJoinPool pool) {
+
+		run(graph, sources, null, eccentricity, totalDistance, numReached, pool);
+	}
+
+	/*
+	 * This method returns the eccentricity of every vertex: the largest distance from the vertex to
+	 * a vertex that is reachable from it
+	 */
+	public static int[] eccentricity(CompactGraph graph) {
+
+		int[] sources = allVertices(graph);
+		int[] eccentricity = new int[sources.length];
+
+		statistics(graph, sources, eccentricity, null, null);
+
+		int[] result = new int[sources.length + 1]; // Indexed by vertex
+
+		for (int i = 0; i < sources.length; i++) {
+			result[sources[i]] = eccentricity[i];
+		}
+
+		return result;
+	}
+
+	/*
+	 * This method returns the closeness centrality of every vertex: the number of vertices reachable
+	 * from it (excluding itself) divided by the sum of the distances to them, or 0 if no vertex is
+	 * reachable
+	 */
+	public static double[] closeness(CompactGraph graph) {
+
+		int[] sources = allVertices(graph);
+		long[] totalDistance = new long[sources.length];
+		int[] numReached = new int[sources.length];
+
+		statistics(graph, sources, null, totalDistance, numReached);
+
+		double[] closeness = new double[sources.length + 1];
+
+		for (int i = 0; i < sources.length; i++) {
+			if (totalDistance[i] > 0) closeness[sources[i]] = (numReached[i] - 1) / (double) totalDistance[i];
+		}
+
+		return closeness;
+	}
+
+	/*
+	 * This method runs the searches in batches of 64 starting vertices. Each task of the pool runs
+	 * a range of batches with its own bitmasks.
+	 */
+	private static void run(final CompactGraph graph, final int[] sources, final int[][] rows, final int[] eccentricity, final long[] totalDistance, final int[] numReached, ForkJoinPool pool) {
+
+		final int numBatches = (sources.length + LANES - 1) / LANES;
+		int grain = Math.max(1, numBatches / (pool.getParallelism() * TASKS_PER_THREAD));
+
+		ParallelFor.run(pool, 0, numBatches, grain, (from, to) -> {
+
+			Batch batch = new Batch(graph.getNumVertices());
+
+			for (int b = from; b < to; b++) {
+				batch.run(graph, sources, b * LANES, Math.min(sources.length, (b + 1) * LANES), rows, eccentricity, totalDistance, numReached);
+			}
+		});
+	}
+
+	private static int[] allVertices(CompactGraph graph) {
+
+		int[] vertices = new int[graph.getNumVertices()];
+
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = i + 1;
+		}
+
+		return vertices;
+	}
+
+	/*
+	 * The bitmasks and frontiers of a batch of searches. They are reused by consecutive batches.
+	 */
+	private static class Batch {
+
+		private long[] seen;
+		private long[] visit; // Current frontier
+		private long[] visitNext; // Next frontier
+		private int[] frontier; // Vertices whose "visit" mask is not empty
+		private int[] nextFrontier;
+
+		Batch(int n) {
+
+			seen = new long[n + 1]; // Vertices are numbered from 1 to N
+			visit = new long[n + 1];
+			visitNext = new long[n + 1];
+			frontier = new int[n];
+			nextFrontier = new int[n];
+		}
+
+		/*
+		 * This method runs the searches from sources[first] to sources[last - 1] (at most 64)
+		 */
+		void run(CompactGraph graph, int[] sources, int first, int last, int[][] rows, int[] eccentricity, long[] totalDistance, int[] numReached) {
+
+			int[] offsets = graph.getOffsets();
+			int[] targets = graph.getTargets();
+			int frontierSize = 0;
+
+			for (int v = 0; v < seen.length; v++) {
+				seen[v] = 0;
+			}
+
+			// Level 0: the starting vertices
+
+			for (int i = first; i < last; i++) {
+
+				if (eccentricity != null) eccentricity[i] = 0;
+				if (totalDistance != null) totalDistance[i] = 0;
+				if (numReached != null) numReached[i] = 0;
+
+				int s = sources[i];
+				long bit = 1L << (i - first);
+
+				if (visit[s] == 0) frontier[frontierSize++] = s;
+				visit[s] |= bit;
+				seen[s] |= bit;
+			}
+
+			int level = 0;
+
+			while (frontierSize > 0) {
+
+				// Record the vertices of the frontier
+
+				for (int k = 0; k < frontierSize; k++) {
+
+					int v = frontier[k];
+
+					for (long lanes = visit[v]; lanes != 0; lanes &= lanes - 1) {
+
+						int i = first + Long.numberOfTrailingZeros(lanes);
+
+						if (rows != null) rows[i][v] = level;
+						if (eccentricity != null) eccentricity[i] = level;
+						if (totalDistance != null) totalDistance[i] += level;
+						if (numReached != null) numReached[i]++;
+					}
+				}
+
+				// Expand the frontier: one scan of the adjacency list for all the searches of a vertex
+
+				int nextSize = 0;
+
+				for (int k = 0; k < frontierSize; k++) {
+
+					int v = frontier[k];
+					long lanes = visit[v];
+
+					for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+
+						int y = targets[e];
+						long newLanes = lanes & ~seen[y];
+
+						if (newLanes != 0) {
+							if (visitNext[y] == 0) nextFrontier[nextSize++] = y;
+							visitNext[y] |= newLanes;
+						}
+					}
+
+					visit[v] = 0;
+				}
+
+				for (int k = 0; k < nextSize; k++) {
+					seen[nextFrontier[k]] |= visitNext[nextFrontier[k]];
+				}
+
+				// Swap the frontiers (the next masks are now empty)
+
+				long[] auxMasks = visit;
+				visit = visitNext;
+				visitNext = auxMasks;
+
+				int[] aux = frontier;
+				frontier = nextFrontier;
+				nextFrontier = aux;
+				frontierSize = nextSize;
+
+				level++;
+			}
+		}
+	}
+}
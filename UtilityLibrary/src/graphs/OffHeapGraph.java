@@ -0,0 +1,295 @@
+package graphs;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A read-only graph in CSR format (see CompactGraph) whose arrays are stored outside of the Java heap,
+ * in direct buffers. The garbage collector only sees a few buffer objects, whatever the size of the
+ * graph, so it never has to mark (or copy) the edges, and the heap can be kept small. The memory is
+ * released when the graph is no longer reachable.
+ *
+ * A direct buffer cannot hold more than 2^31 bytes, so every array is split in chunks of 2^27 values,
+ * and the positions of the edges are 64-bit integers: the number of edges is only limited by the
+ * available memory. Edge e is found in position (e mod 2^27) of chunk (e / 2^27). The adjacency list
+ * of a vertex x is found in positions getOffset(x) to getOffset(x+1)-1 of the edges.
+ *
+ * Since the offsets must be known before the edges are stored, a graph is built in two steps with a
+ * Builder: the degree of every vertex is given first, and then the edges are added in any order.
+ * The algorithms of this package that accept an OffHeapGraph work directly on the buffers.
+ *
+ * @author Mario Cervera
+ */
+public class OffHeapGraph {
+
+	private static final int CHUNK_SHIFT = 27; // Values per chunk: 2^27 (512 MB of ints)
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private int numVertices; // Number of vertices of the graph
+	private long numEdges; // Number of edges of the graph
+	private LongBuffer[] offsets; // Start of the adjacency list of each vertex (plus one final sentinel)
+	private IntBuffer[] targets; // Adjacent vertex of each edge
+	private IntBuffer[] weights; // Weight of each edge (null if all weights are 1)
+
+	/*
+	 * Builder of an off-heap graph. The degree of every vertex is given to the constructor, and
+	 * exactly that number of edges must be added to every vertex before the graph is built.
+	 */
+	public static class Builder {
+
+		private OffHeapGraph graph;
+		private long[] cursor; // Position of the next edge of each vertex
+
+		/*
+		 * Constructor. The array "degree" has n+1 positions: degree[v] is the number of edges of
+		 * vertex v. If "weighted" is false, all the weights are 1.
+		 */
+		public Builder(int numVertices, long[] degree, boolean weighted) {
+
+			if (degree.length <= numVertices)
+				throw new IllegalArgumentException("The degrees of " + numVertices + " vertices are needed");
+
+			graph = new OffHeapGraph();
+			graph.numVertices = numVertices;
+			graph.offsets = allocateLongs((long) numVertices + 2); // Vertices are numbered from 1 to N
+
+			cursor = new long[numVertices + 2];
+
+			// Compute the offsets (prefix sum of the degrees)
+
+			long position = 0;
+
+			for (int v = 1; v <= numVertices; v++) {
+
+				if (degree[v] < 0)
+					throw new IllegalArgumentException("Negative degree of vertex " + v);
+
+				cursor[v] = position;
+				graph.setOffset(v, position);
+				position += degree[v];
+			}
+
+			cursor[numVertices + 1] = position;
+			graph.setOffset(numVertices + 1, position);
+			graph.numEdges = position;
+
+			graph.targets = allocateInts(position);
+			graph.weights = weighted ? allocateInts(position) : null;
+		}
+
+		/*
+		 * This method adds a new edge (x,y) to the graph (weighted)
+		 */
+		public void addEdge(int x, int y, int weight) {
+
+			if (x < 1 || x > graph.numVertices || y < 1 || y > graph.numVertices)
+				throw new IllegalArgumentException("Invalid edge (" + x + "," + y + ")");
+
+			long e = cursor[x];
+
+			if (e == graph.getOffset(x + 1))
+				throw new IllegalArgumentException("Vertex " + x + " has more edges than its degree");
+
+			graph.targets[(int) (e >>> CHUNK_SHIFT)].put((int) (e & CHUNK_MASK), y);
+
+			if (graph.weights != null) {
+				graph.weights[(int) (e >>> CHUNK_SHIFT)].put((int) (e & CHUNK_MASK), weight);
+			}
+			else if (weight != 1) {
+				throw new IllegalArgumentException("Weight " + weight + " in an unweighted graph");
+			}
+
+			cursor[x] = e + 1;
+		}
+
+		/*
+		 * This method adds a new edge (x,y) to the graph (unweighted --> weight = 1)
+		 */
+		public void addEdge(int x, int y) {
+
+			addEdge(x, y, 1);
+		}
+
+		/*
+		 * This method returns the graph, once all the edges have been added
+		 */
+		public OffHeapGraph build() {
+
+			for (int v = 1; v <= graph.numVertices; v++) {
+				if (cursor[v] != graph.getOffset(v + 1))
+					throw new IllegalArgumentException("Vertex " + v + " has fewer edges than its degree");
+			}
+
+			OffHeapGraph result = graph;
+			graph = null; // The builder cannot be used anymore
+			cursor = null;
+
+			return result;
+		}
+	}
+
+	private OffHeapGraph() {
+	}
+
+	/*
+	 * Constructor that copies a graph represented by means of adjacency lists. The edges of each
+	 * vertex keep the order of its adjacency list.
+	 */
+	public OffHeapGraph(Graph graph) {
+
+		this(new CompactGraph(graph));
+	}
+
+	/*
+	 * Constructor that copies a graph represented in CSR format
+	 */
+	public OffHeapGraph(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] compactOffsets = graph.getOffsets();
+		int[] compactTargets = graph.getTargets();
+		int[] compactWeights = graph.getWeights();
+
+		boolean weighted = false;
+
+		for (int e = 0; e < compactWeights.length && !weighted; e++) {
+			weighted = compactWeights[e] != 1;
+		}
+
+		this.numVertices = n;
+		this.numEdges = compactTargets.length;
+		this.offsets = allocateLongs((long) n + 2);
+		this.targets = allocateInts(numEdges);
+		this.weights = weighted ? allocateInts(numEdges) : null;
+
+		for (int v = 0; v <= n + 1; v++) {
+			setOffset(v, compactOffsets[v]);
+		}
+
+		// Copy the edges chunk by chunk
+
+		for (int c = 0; c < targets.length; c++) {
+
+			int from = c * CHUNK_SIZE;
+			int count = targets[c].capacity();
+
+			copy(compactTargets, from, targets[c], count);
+
+			if (weighted) copy(compactWeights, from, weights[c], count);
+		}
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public long getNumEdges() {
+		return numEdges;
+	}
+
+	/*
+	 * Returns the position of the first edge of a vertex (for vertex n+1, the number of edges)
+	 */
+	public long getOffset(int vertex) {
+		return offsets[vertex >>> CHUNK_SHIFT].get(vertex & CHUNK_MASK);
+	}
+
+	public long getDegree(int vertex) {
+		return getOffset(vertex + 1) - getOffset(vertex);
+	}
+
+	/*
+	 * Returns the adjacent vertex of the edge in position "e"
+	 */
+	public int getTarget(long e) {
+		return targets[(int) (e >>> CHUNK_SHIFT)].get((int) (e & CHUNK_MASK));
+	}
+
+	/*
+	 * Returns the weight of the edge in position "e"
+	 */
+	public int getWeight(long e) {
+		return weights == null ? 1 : weights[(int) (e >>> CHUNK_SHIFT)].get((int) (e & CHUNK_MASK));
+	}
+
+	/*
+	 * Returns true if the graph stores weights (false if all of them are 1)
+	 */
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	/*
+	 * This method returns a copy of this graph in the Java heap
+	 */
+	public CompactGraph toCompactGraph() {
+
+		if (numEdges > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many edges for a CompactGraph: " + numEdges);
+
+		int m = (int) numEdges;
+		int[] offsetArray = new int[numVertices + 2];
+		int[] targetArray = new int[m];
+		int[] weightArray = new int[m];
+
+		for (int v = 0; v <= numVertices + 1; v++) {
+			offsetArray[v] = (int) getOffset(v);
+		}
+
+		for (int e = 0; e < m; e++) {
+			targetArray[e] = getTarget(e);
+			weightArray[e] = getWeight(e);
+		}
+
+		return new CompactGraph(numVertices, offsetArray, targetArray, weightArray);
+	}
+
+	private void setOffset(int vertex, long value) {
+		offsets[vertex >>> CHUNK_SHIFT].put(vertex & CHUNK_MASK, value);
+	}
+
+	/*
+	 * Copies "count" values of an array, starting at position "from", to the beginning of a chunk
+	 */
+	private static void copy(int[] values, int from, IntBuffer chunk, int count) {
+
+		IntBuffer view = chunk.duplicate();
+		view.position(0);
+		view.put(values, from, count);
+	}
+
+	/*
+	 * Allocates "count" ints outside of the heap, in chunks of CHUNK_SIZE values
+	 */
+	private static IntBuffer[] allocateInts(long count) {
+
+		int numChunks = (int) ((count + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+		IntBuffer[] chunks = new IntBuffer[numChunks];
+
+		for (int c = 0; c < numChunks; c++) {
+			int size = (int) Math.min(CHUNK_SIZE, count - ((long) c << CHUNK_SHIFT));
+			chunks[c] = ByteBuffer.allocateDirect(4 * size).order(ByteOrder.nativeOrder()).asIntBuffer();
+		}
+
+		return chunks;
+	}
+
+	/*
+	 * Allocates "count" longs outside of the heap, in chunks of CHUNK_SIZE values
+	 */
+	private static LongBuffer[] allocateLongs(long count) {
+
+		int numChunks = (int) ((count + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+		LongBuffer[] chunks = new LongBuffer[numChunks];
+
+		for (int c = 0; c < numChunks; c++) {
+			int size = (int) Math.min(CHUNK_SIZE, count - ((long) c << CHUNK_SHIFT));
+			chunks[c] = ByteBuffer.allocateDirect(8 * size).order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+
+		return chunks;
+	}
+}
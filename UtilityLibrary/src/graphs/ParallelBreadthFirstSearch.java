@@ -0,0 +1,334 @@
+package graphs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class provides a parallel, level-synchronous Breadth-First Search on graphs represented in CSR
+ * format. All the vertices of one level (the "frontier") are expanded in parallel by the threads of a
+ * ForkJoinPool before the next level starts. The search computes a "parent" array (the Breadth-First
+ * Search tree) and the distance (number of edges) from the starting vertex to every vertex.
+ *
+ * The search is direction-optimizing (Beamer, Asanovic and Patterson, 2012). While the frontier is
+ * small, levels are expanded "top-down": every vertex of the frontier claims its undiscovered
+ * neighbors. When the frontier becomes large, most of these edge checks fail, so levels are expanded
+ * "bottom-up" instead: every undiscovered vertex looks for a parent in the frontier among its incoming
+ * edges and stops as soon as it finds one. The top-down frontier is an array of vertices; the
+ * bottom-up frontier is a bitset.
+ *
+ * An instance of this class is bound to a graph (and to its reverse, which provides the incoming
+ * edges). Searches are not reentrant: use one instance per concurrent search.
+ *
+ * @author Mario Cervera
+ */
+public class ParallelBreadthFirstSearch {
+
+	private static final int ALPHA = 14; // Switch to bottom-up when frontier edges > unexplored edges / ALPHA
+	private static final int BETA = 24; // Switch back to top-down when frontier vertices < N / BETA
+
+	private static final int TOP_DOWN_GRAIN = 256; // Frontier vertices per task
+	private static final int BOTTOM_UP_GRAIN = 64; // Bitset words (64 vertices each) per task
+
+	private CompactGraph graph; // Outgoing edges
+	private CompactGraph reverse; // Incoming edges
+	private ForkJoinPool pool;
+
+	private int[] parent;
+	private int[] distance;
+
+	private AtomicLongArray visited; // One bit per vertex
+
+	/*
+	 * Constructor for undirected graphs (incoming and outgoing edges are the same)
+	 */
+	public ParallelBreadthFirstSearch(CompactGraph graph) {
+
+		this(graph, graph, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Constructor for directed graphs. "reverse" must be the reverse of "graph" (see
+	 * CompactGraph.reverse). The searches are run on the threads of the given pool.
+	 */
+	public ParallelBreadthFirstSearch(CompactGraph graph, CompactGraph reverse, ForkJoinPool pool) {
+
+		if (graph.getNumVertices() != reverse.getNumVertices())
+			throw new IllegalArgumentException("The reverse graph has a different number of vertices");
+
+		this.graph = graph;
+		this.reverse = reverse;
+		this.pool = pool;
+	}
+
+	/*
+	 * Returns the parent of each vertex in the Breadth-First Search tree of the last search (-1
+	 * for the starting vertex and for unreachable vertices)
+	 */
+	public int[] getParent() {
+		return parent;
+	}
+
+	/*
+	 * Returns the distance from the starting vertex of the last search to each vertex (-1 for
+	 * unreachable vertices)
+	 */
+	public int[] getDistance() {
+		return distance;
+	}
+
+	/*
+	 * This method traverses the graph from a given starting vertex. It returns the distance array.
+	 */
+	public int[] bfs(int start) {
+
+		int n = graph.getNumVertices();
+		int words = (n >>> 6) + 1; // Vertices are numbered from 1 to N
+
+		initializeSearch(n, words);
+
+		// Level 0
+
+		int[] frontier = new int[n];
+		int[] next = new int[n];
+		int frontierSize = 1;
+		frontier[0] = start;
+
+		long[] frontierBits = null;
+		long[] nextBits = null;
+
+		claim(start);
+		distance[start] = 0;
+
+		long frontierEdges = graph.getDegree(start);
+		long unexploredEdges = graph.getNumEdges() - frontierEdges;
+
+		boolean topDown = true;
+		int level = 0;
+
+		while (frontierSize > 0) {
+
+			level++;
+
+			// Decide the direction of this level
+
+			if (topDown && frontierEdges > unexploredEdges / ALPHA) {
+
+				if (frontierBits == null) {
+					frontierBits = new long[words];
+					nextBits = new long[words];
+				}
+				toBitset(frontier, frontierSize, frontierBits);
+				topDown = false;
+			}
+			else if (!topDown && frontierSize < n / BETA) {
+
+				frontierSize = toArray(frontierBits, frontier);
+				topDown = true;
+			}
+
+			// Expand the level
+
+			AtomicLong nextEdges = new AtomicLong();
+			int nextSize;
+
+			if (topDown) {
+				nextSize = topDownStep(frontier, frontierSize, next, level, nextEdges);
+				int[] aux = frontier;
+				frontier = next;
+				next = aux;
+			}
+			else {
+				nextSize = bottomUpStep(frontierBits, nextBits, level, nextEdges);
+				long[] aux = frontierBits;
+				frontierBits = nextBits;
+				nextBits = aux;
+			}
+
+			frontierSize = nextSize;
+			frontierEdges = nextEdges.get();
+			unexploredEdges -= frontierEdges;
+		}
+
+		return distance;
+	}
+
+	/*
+	 * Top-down step: every vertex of the frontier claims its unvisited neighbors. Each task
+	 * collects the vertices that it claims in a local buffer and then copies them to the next
+	 * frontier, in a region that it reserves with an atomic counter.
+	 */
+	private int topDownStep(final int[] frontier, int frontierSize, final int[] next, final int level, final AtomicLong nextEdges) {
+
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+		final AtomicInteger tail = new AtomicInteger();
+
+		ParallelFor.run(pool, 0, frontierSize, TOP_DOWN_GRAIN, (from, to) -> {
+
+			int[] buffer = new int[64];
+			int count = 0;
+			long edges = 0;
+
+			for (int i = from; i < to; i++) {
+
+				int x = frontier[i];
+
+				for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+					int y = targets[e];
+
+					if (!isVisited(y) && claim(y)) {
+						parent[y] = x;
+						distance[y] = level;
+						edges += offsets[y + 1] - offsets[y];
+
+						if (count == buffer.length) {
+							int[] aux = new int[2 * count];
+							System.arraycopy(buffer, 0, aux, 0, count);
+							buffer = aux;
+						}
+						buffer[count++] = y;
+					}
+				}
+			}
+
+			if (count > 0) {
+				System.arraycopy(buffer, 0, next, tail.getAndAdd(count), count);
+				nextEdges.addAndGet(edges);
+			}
+		});
+
+		return tail.get();
+	}
+
+	/*
+	 * Bottom-up step: every unvisited vertex looks for a neighbor in the frontier. Each task owns
+	 * whole words of the bitsets, so only the owner writes them.
+	 */
+	private int bottomUpStep(final long[] frontierBits, final long[] nextBits, final int level, final AtomicLong nextEdges) {
+
+		final int[] offsets = graph.getOffsets();
+		final int[] inOffsets = reverse.getOffsets();
+		final int[] inTargets = reverse.getTargets();
+		final int n = graph.getNumVertices();
+		final AtomicInteger size = new AtomicInteger();
+
+		ParallelFor.run(pool, 0, nextBits.length, BOTTOM_UP_GRAIN, (from, to) -> {
+
+			int count = 0;
+			long edges = 0;
+
+			for (int w = from; w < to; w++) {
+
+				long unvisited = ~visited.get(w);
+				long found = 0;
+
+				while (unvisited != 0) {
+
+					int bit = Long.numberOfTrailingZeros(unvisited);
+					unvisited &= unvisited - 1;
+
+					int y = (w << 6) + bit;
+					if (y > n) break;
+
+					for (int e = inOffsets[y]; e < inOffsets[y + 1]; e++) {
+
+						int x = inTargets[e];
+
+						if ((frontierBits[x >>> 6] & (1L << x)) != 0) {
+							parent[y] = x;
+							distance[y] = level;
+							found |= 1L << bit;
+							edges += offsets[y + 1] - offsets[y];
+							count++;
+							break;
+						}
+					}
+				}
+
+				nextBits[w] = found;
+
+				if (found != 0) {
+					visited.set(w, visited.get(w) | found);
+				}
+			}
+
+			size.addAndGet(count);
+			nextEdges.addAndGet(edges);
+		});
+
+		return size.get();
+	}
+
+	/*
+	 * This method initializes the variables that are used in the search
+	 */
+	private void initializeSearch(int n, int words) {
+
+		parent = new int[n + 1];
+		distance = new int[n + 1];
+
+		for (int i = 0; i <= n; i++) {
+			parent[i] = -1;
+			distance[i] = -1;
+		}
+
+		visited = new AtomicLongArray(words);
+		visited.set(0, 1L); // Vertex 0 does not exist
+	}
+
+	private boolean isVisited(int vertex) {
+		return (visited.get(vertex >>> 6) & (1L << vertex)) != 0;
+	}
+
+	/*
+	 * Marks a vertex as visited. Returns true if this thread is the one that visited it first.
+	 */
+	private boolean claim(int vertex) {
+
+		int w = vertex >>> 6;
+		long bit = 1L << vertex;
+
+		while (true) {
+			long old = visited.get(w);
+			if ((old & bit) != 0) return false;
+			if (visited.compareAndSet(w, old, old | bit)) return true;
+		}
+	}
+
+	/*
+	 * Converts a frontier stored as an array into a bitset
+	 */
+	private static void toBitset(int[] frontier, int size, long[] bits) {
+
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = 0;
+		}
+
+		for (int i = 0; i < size; i++) {
+			bits[frontier[i] >>> 6] |= 1L << frontier[i];
+		}
+	}
+
+	/*
+	 * Converts a frontier stored as a bitset into an array. Returns the size of the frontier.
+	 */
+	private static int toArray(long[] bits, int[] frontier) {
+
+		int size = 0;
+
+		for (int w = 0; w < bits.length; w++) {
+
+			long word = bits[w];
+
+			while (word != 0) {
+				frontier[size++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+
+		return size;
+	}
+}
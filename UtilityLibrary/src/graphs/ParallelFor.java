@@ -0,0 +1,70 @@
+package graphs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A helper for the parallel algorithms of this package. It splits a range of indices in halves
+ * (fork/join style) until the pieces are not larger than a given grain size, and then applies a
+ * sequential body to every piece.
+ * 
+ * @author Mario Cervera
+ */
+final class ParallelFor {
+
+	/*
+	 * The sequential work to be done on the indices from "from" (inclusive) to "to" (exclusive)
+	 */
+	interface RangeBody {
+		void apply(int from, int to);
+	}
+
+	private ParallelFor() {
+	}
+
+	/*
+	 * This method applies the body to the range [from, to) using the threads of the given pool.
+	 * It returns when all the pieces have been processed.
+	 */
+	static void run(ForkJoinPool pool, int from, int to, int grain, RangeBody body) {
+
+		if (to - from <= grain) {
+			body.apply(from, to);
+		}
+		else {
+			pool.invoke(new RangeAction(from, to, Math.max(grain, 1), body));
+		}
+	}
+
+	/*
+	 * The fork/join task that splits the range
+	 */
+	private static class RangeAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final RangeBody body;
+
+		RangeAction(int from, int to, int grain, RangeBody body) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= grain) {
+				body.apply(from, to);
+			}
+			else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RangeAction(from, middle, grain, body), new RangeAction(middle, to, grain, body));
+			}
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package graphs;
+
+/**
+ * This class answers shortest path queries between two given vertices (a source and a target) in
+ * non-negative weighted graphs represented in CSR format. Unlike ShortestPath.dijkstra, the searches
+ * stop as soon as the distance to the target is known, so they usually settle a small part of the
+ * graph. Two algorithms are provided:
+ *
+ * Bidirectional Dijkstra's algorithm runs two searches at once: a forward search from the source and
+ * a backward search (on the reverse graph) from the target. It always expands the search with the
+ * lowest key. Every edge that reaches a vertex labelled by the other search gives a path from the source
+ * to the target, and the best one (of length mu) is kept. The algorithm stops when the lowest keys of
+ * both searches add up to mu or more.
+ *
+ * A* is Dijkstra's algorithm in which the key of a vertex is its distance from the source plus an
+ * estimate of its distance to the target, supplied by the caller as a Heuristic. The heuristic must be
+ * admissible (it must never overestimate the distance) but it does not need to be consistent: a
+ * settled vertex is reopened if a shorter path to it is found. The algorithm stops when the target is
+ * settled.
+ *
+ * As in TraversalContext, the arrays of a search are allocated once and reused by every query, and
+ * vertices are stamped with the number of the current query instead of clearing the arrays, so a query
+ * does not allocate memory or take O(n) time to start. An instance must not be used by several threads
+ * at once (see ShortestPath.bidirectionalDijkstra and ShortestPath.aStar, which keep one instance per
+ * thread).
+ *
+ * @author Mario Cervera
+ */
+public class PointToPointSearch {
+
+	/*
+	 * An estimate of the distance from a vertex to the target of an A* search
+	 */
+	public interface Heuristic {
+		long estimate(int vertex, int target);
+	}
+
+	private static final int FORWARD = 0;
+	private static final int BACKWARD = 1;
+
+	// One array of each kind for every direction (A* only uses the forward arrays)
+
+	private int[][] stamp; // Labelled: stamp == epoch; settled: stamp == epoch + 1
+	private long[][] distance; // Only meaningful for labelled or settled vertices
+	private int[][] parent;
+	private IndexedMinHeap[] heap;
+
+	private int epoch;
+
+	// Result of the last query
+
+	private long bestDistance;
+	private int meeting; // Vertex of the shortest path where both searches meet (-1 if none)
+	private boolean bidirectional;
+	private int numSettled;
+
+	/*
+	 * Constructor. The search grows automatically if it is used with a graph with more vertices.
+	 */
+	public PointToPointSearch(int numVertices) {
+
+		allocate(numVertices);
+	}
+
+	/*
+	 * Returns the distance from the source to the target of the last query (Long.MAX_VALUE if the
+	 * target is not reachable)
+	 */
+	public long getDistance() {
+		return bestDistance;
+	}
+
+	/*
+	 * Returns the number of vertices settled by the last query
+	 */
+	public int getNumSettled() {
+		return numSettled;
+	}
+
+	/*
+	 * Bidirectional Dijkstra's algorithm. "reverse" must be the reverse of "graph" (see
+	 * CompactGraph.reverse), or the graph itself if it is undirected. It returns the distance from
+	 * the source to the target.
+	 */
+	public long bidirectionalDijkstra(CompactGraph graph, CompactGraph reverse, int source, int target) {
+
+		if (graph.getNumVertices() != reverse.getNumVertices())
+			throw new IllegalArgumentException("The reverse graph has a different number of vertices");
+
+		initializeSearch(graph.getNumVertices());
+		bidirectional = true;
+
+		label(FORWARD, source, 0, -1);
+		label(BACKWARD, target, 0, -1);
+
+		if (source == target) {
+			bestDistance = 0;
+			meeting = source;
+			return bestDistance;
+		}
+
+		while (true) {
+
+			long forwardKey = heap[FORWARD].isEmpty() ? Long.MAX_VALUE : heap[FORWARD].minKey();
+			long backwardKey = heap[BACKWARD].isEmpty() ? Long.MAX_VALUE : heap[BACKWARD].minKey();
+
+			// Stop when no shorter path can be found (the keys are added without overflow)
+
+			if (forwardKey >= bestDistance - Math.min(backwardKey, bestDistance)) break;
+
+			int side = forwardKey <= backwardKey ? FORWARD : BACKWARD;
+			int other = 1 - side;
+
+			int x = heap[side].extractMin();
+			stamp[side][x] = epoch + 1; // Settled
+			numSettled++;
+
+			CompactGraph sideGraph = (side == FORWARD) ? graph : reverse;
+			int[] offsets = sideGraph.getOffsets();
+			int[] targets = sideGraph.getTargets();
+			int[] weights = sideGraph.getWeights();
+			long dx = distance[side][x];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+				long newDistance = dx + weights[e];
+
+				if (stamp[side][y] == epoch + 1) continue; // Settled
+
+				if (stamp[side][y] != epoch || newDistance < distance[side][y]) {
+					label(side, y, newDistance, x);
+				}
+
+				// A path from the source to the target through y
+
+				if (stamp[other][y] >= epoch && newDistance + distance[other][y] < bestDistance) {
+					bestDistance = newDistance + distance[other][y];
+					meeting = y;
+				}
+			}
+		}
+
+		return bestDistance;
+	}
+
+	/*
+	 * A* search with an admissible heuristic. It returns the distance from the source to the target.
+	 */
+	public long aStar(CompactGraph graph, int source, int target, Heuristic heuristic) {
+
+		initializeSearch(graph.getNumVertices());
+		bidirectional = false;
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		int[] stamp = this.stamp[FORWARD];
+		long[] distance = this.distance[FORWARD];
+		int[] parent = this.parent[FORWARD];
+		IndexedMinHeap heap = this.heap[FORWARD];
+
+		stamp[source] = epoch;
+		distance[source] = 0;
+		parent[source] = -1;
+		heap.insert(source, heuristic.estimate(source, target));
+
+		while (!heap.isEmpty()) {
+
+			int x = heap.extractMin();
+			stamp[x] = epoch + 1; // Settled
+			numSettled++;
+
+			if (x == target) {
+				bestDistance = distance[x];
+				meeting = x;
+				break;
+			}
+
+			long dx = distance[x];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+				long newDistance = dx + weights[e];
+
+				if (stamp[y] < epoch || newDistance < distance[y]) {
+
+					distance[y] = newDistance;
+					parent[y] = x;
+
+					long key = newDistance + heuristic.estimate(y, target);
+
+					if (heap.contains(y)) {
+						heap.decreaseKey(y, key);
+					}
+					else { // Not labelled yet, or settled and reopened
+						stamp[y] = epoch;
+						heap.insert(y, key);
+					}
+				}
+			}
+		}
+
+		return bestDistance;
+	}
+
+	/*
+	 * This method returns the shortest path from the source to the target of the last query, or
+	 * null if the target is not reachable
+	 */
+	public int[] getPath() {
+
+		if (meeting == -1) return null;
+
+		// Count the vertices from the source to the meeting vertex and from there to the target
+
+		int forwardLength = 0;
+		int length = 0;
+
+		for (int v = meeting; v != -1; v = parent[FORWARD][v]) {
+			forwardLength++;
+		}
+
+		length = forwardLength;
+
+		if (bidirectional) {
+			for (int v = parent[BACKWARD][meeting]; v != -1; v = parent[BACKWARD][v]) {
+				length++;
+			}
+		}
+
+		// Fill the path
+
+		int[] path = new int[length];
+		int pos = forwardLength;
+
+		for (int v = meeting; v != -1; v = parent[FORWARD][v]) {
+			path[--pos] = v;
+		}
+
+		if (bidirectional) {
+			pos = forwardLength;
+			for (int v = parent[BACKWARD][meeting]; v != -1; v = parent[BACKWARD][v]) {
+				path[pos++] = v;
+			}
+		}
+
+		return path;
+	}
+
+	/*
+	 * Labels a vertex (or lowers its label) in one of the directions of the search
+	 */
+	private void label(int side, int vertex, long d, int parentVertex) {
+
+		if (heap[side].contains(vertex)) {
+			heap[side].decreaseKey(vertex, d);
+		}
+		else {
+			heap[side].insert(vertex, d);
+		}
+
+		stamp[side][vertex] = epoch;
+		distance[side][vertex] = d;
+		parent[side][vertex] = parentVertex;
+	}
+
+	/*
+	 * This method starts a new query: it moves to the next epoch (clearing the stamps only when the
+	 * epoch overflows), empties the heaps and grows the arrays if the graph has more vertices than
+	 * the search.
+	 */
+	private void initializeSearch(int n) {
+
+		if (stamp[FORWARD].length <= n) {
+			allocate(n);
+		}
+
+		if (epoch >= Integer.MAX_VALUE - 2) {
+			for (int side = FORWARD; side <= BACKWARD; side++) {
+				for (int i = 0; i < stamp[side].length; i++) {
+					stamp[side][i] = 0;
+				}
+			}
+			epoch = 0;
+		}
+
+		epoch += 2; // Stamps lower than the new epoch mean "not labelled"
+
+		heap[FORWARD].clear();
+		heap[BACKWARD].clear();
+
+		bestDistance = Long.MAX_VALUE;
+		meeting = -1;
+		numSettled = 0;
+	}
+
+	private void allocate(int n) {
+
+		stamp = new int[2][n + 1]; // Vertices are numbered from 1 to N
+		distance = new long[2][n + 1];
+		parent = new int[2][n + 1];
+		heap = new IndexedMinHeap[] { new IndexedMinHeap(n + 1), new IndexedMinHeap(n + 1) };
+		epoch = 0;
+	}
+}
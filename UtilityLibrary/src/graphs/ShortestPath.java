@@ -1,29 +1,55 @@
 package graphs;
 
+import java.nio.IntBuffer;
+
 /**
  * This class implements two shortest path algorithms: Dijkstra's and Floyd-Warshall's.
  * 
  * Dijkstra's algorithm computes shortest paths in non-negative weighted graphs. Given
  * a particular starting vertex s, it finds the distance from s to every other vertex
  * in the graph. The implementation of Dijkstra's algorithm that is given in this class
- * runs in O(nm) time, where n is the number of vertices of the graph and m is the number
- * of edges. Faster running times can be achieved by improving this algorithm by means of
- * a heap data structure.
+ * selects the next vertex by means of an indexed binary heap with "decrease key", so it
+ * runs in O(m log n) time, where n is the number of vertices of the graph and m is the
+ * number of edges. For queries between a single pair of vertices, the bidirectional
+ * Dijkstra's and A* searches (see PointToPointSearch) stop as soon as the distance to the
+ * target is known. On directed acyclic graphs, TopologicalSort computes the
+ * shortest (and longest) paths in O(n+m) time, even with negative weights.
  * 
  * Unlike Dijkstra's algorithm, Floyd-Warshall's algorithm finds shortest paths between
  * all pairs of vertices. It supports both positive and negative edge weights (but no
- * negative cycles). Floyd-Warshall's algorithm runs in O(n^3) time.
+ * negative cycles). Floyd-Warshall's algorithm runs in O(n^3) time. For large sparse
+ * graphs, Johnson's algorithm (see AllPairsShortestPath) is much faster.
  * 
  * @author Mario Cervera
  */
 public class ShortestPath {
 
+	/*
+	 * Point-to-point searches of each thread, which are reused by consecutive queries
+	 */
+	private static final ThreadLocal<PointToPointSearch> searches = new ThreadLocal<PointToPointSearch>() {
+		@Override
+		protected PointToPointSearch initialValue() {
+			return new PointToPointSearch(0);
+		}
+	};
+
 	/*
 	 * Dijkstra's shortest paths algorithm. It returns an array that contains the distances
 	 * from the starting vertex to every other vertex in the graph.
 	 */
 	public static long[] dijkstra(Graph graph, int start) {
 
+		return dijkstra(graph, start, null);
+	}
+	
+	/*
+	 * Dijkstra's shortest paths algorithm. If "parent" is not null (it must have N+1 positions),
+	 * it is filled with the predecessor of every vertex in the shortest paths tree (-1 for the
+	 * starting vertex and for unreachable vertices), which enables the reconstruction of the paths.
+	 */
+	public static long[] dijkstra(Graph graph, int start, int[] parent) {
+
 		// Initialize variables
 
 		int n = graph.getNumVertices();
@@ -31,22 +57,26 @@ public class ShortestPath {
 
 		long[] distance = new long[n + 1];
 		boolean[] inTree = new boolean[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
 
 		for(int i = 0; i <= n; i++) {
 			distance[i] = Long.MAX_VALUE;
 			inTree[i] = false;
+			if(parent != null) parent[i] = -1;
 		}
 
 		// The distance to the starting vertex from the starting vertex is 0
 
 		distance[start] = 0;
+		heap.insert(start, 0);
 
 		// While there are vertices outside of the shortest paths tree ...
 
-		int node = start;
+		while(!heap.isEmpty()) {
 
-		while(!inTree[node]) {
+			// Select minimum distance
 
+			int node = heap.extractMin();
 			inTree[node] = true;
 
 			// Iterate outgoing edges of current vertex to update distances
@@ -55,27 +85,211 @@ public class ShortestPath {
 
 			while(adjacentNode != null) {
 
-				long w = adjacentNode.getWeight();
-				long currentDistance = distance[adjacentNode.getY()];
-				long newDistance = distance[node] + w;
+				int y = adjacentNode.getY();
+				long newDistance = distance[node] + adjacentNode.getWeight();
 
-				if(currentDistance > newDistance) {
-					distance[adjacentNode.getY()] = newDistance;
+				if(!inTree[y] && distance[y] > newDistance) {
+					
+					if(heap.contains(y)) heap.decreaseKey(y, newDistance);
+					else heap.insert(y, newDistance);
+					
+					distance[y] = newDistance;
+					if(parent != null) parent[y] = node;
 				}
 
 				adjacentNode = adjacentNode.getNext();
 			}
+		}
 
-			// Select minimum distance
+		return distance;
+	}
+
+	/*
+	 * Dijkstra's algorithm on a graph represented in CSR format
+	 */
+	public static long[] dijkstra(CompactGraph graph, int start) {
+
+		return dijkstra(graph, start, null);
+	}
+
+	/*
+	 * Dijkstra's algorithm on a graph represented in CSR format. It optionally fills the "parent"
+	 * array, as the method above.
+	 */
+	public static long[] dijkstra(CompactGraph graph, int start, int[] parent) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+
+		long[] distance = new long[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+		for(int i = 0; i <= n; i++) {
+			distance[i] = Long.MAX_VALUE;
+			inTree[i] = false;
+			if(parent != null) parent[i] = -1;
+		}
+
+		// The distance to the starting vertex from the starting vertex is 0
+
+		distance[start] = 0;
+		heap.insert(start, 0);
+
+		// While there are vertices outside of the shortest paths tree ...
+
+		while(!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			inTree[node] = true;
+
+			// Iterate outgoing edges of current vertex to update distances
+
+			for(int e = offsets[node]; e < offsets[node + 1]; e++) {
+
+				int y = targets[e];
+				long newDistance = distance[node] + weights[e];
+
+				if(!inTree[y] && distance[y] > newDistance) {
+					
+					if(heap.contains(y)) heap.decreaseKey(y, newDistance);
+					else heap.insert(y, newDistance);
+					
+					distance[y] = newDistance;
+					if(parent != null) parent[y] = node;
+				}
+			}
+		}
+
+		return distance;
+	}
+	
+	/*
+	 * Dijkstra's algorithm on a graph mapped from a file
+	 */
+	public static long[] dijkstra(MappedGraph graph, int start) {
+
+		return dijkstra(graph, start, null);
+	}
+	
+	/*
+	 * Dijkstra's algorithm on a graph mapped from a file. It optionally fills the "parent" array,
+	 * as the methods above. The adjacency lists are read directly from the mapped buffers.
+	 */
+	public static long[] dijkstra(MappedGraph graph, int start, int[] parent) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		IntBuffer offsets = graph.getOffsets();
+		IntBuffer targets = graph.getTargets();
+		IntBuffer weights = graph.getWeights(); // null --> all weights are 1
+
+		long[] distance = new long[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+		for(int i = 0; i <= n; i++) {
+			distance[i] = Long.MAX_VALUE;
+			inTree[i] = false;
+			if(parent != null) parent[i] = -1;
+		}
+
+		// The distance to the starting vertex from the starting vertex is 0
+
+		distance[start] = 0;
+		heap.insert(start, 0);
+
+		// While there are vertices outside of the shortest paths tree ...
+
+		while(!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			inTree[node] = true;
+
+			// Iterate outgoing edges of current vertex to update distances
+
+			int end = offsets.get(node + 1);
+
+			for(int e = offsets.get(node); e < end; e++) {
+
+				int y = targets.get(e);
+				long newDistance = distance[node] + (weights == null ? 1 : weights.get(e));
+
+				if(!inTree[y] && distance[y] > newDistance) {
+					
+					if(heap.contains(y)) heap.decreaseKey(y, newDistance);
+					else heap.insert(y, newDistance);
+					
+					distance[y] = newDistance;
+					if(parent != null) parent[y] = node;
+				}
+			}
+		}
 
-			node = start;
+		return distance;
+	}
+	
+	/*
+	 * Dijkstra's algorithm on a graph stored outside of the Java heap
+	 */
+	public static long[] dijkstra(OffHeapGraph graph, int start) {
+
+		return dijkstra(graph, start, null);
+	}
+	
+	/*
+	 * Dijkstra's algorithm on a graph stored outside of the Java heap. It optionally fills the
+	 * "parent" array, as the methods above. The adjacency lists are read directly from the buffers.
+	 */
+	public static long[] dijkstra(OffHeapGraph graph, int start, int[] parent) {
+
+		// Initialize variables
 
-			long minDist = Long.MAX_VALUE;
+		int n = graph.getNumVertices();
+
+		long[] distance = new long[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+		for(int i = 0; i <= n; i++) {
+			distance[i] = Long.MAX_VALUE;
+			inTree[i] = false;
+			if(parent != null) parent[i] = -1;
+		}
 
-			for(int i = 1; i <= n; i++) {
-				if(!inTree[i] && distance[i] < minDist) {
-					minDist = distance[i];
-					node = i;
+		// The distance to the starting vertex from the starting vertex is 0
+
+		distance[start] = 0;
+		heap.insert(start, 0);
+
+		// While there are vertices outside of the shortest paths tree ...
+
+		while(!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			inTree[node] = true;
+
+			// Iterate outgoing edges of current vertex to update distances
+
+			long end = graph.getOffset(node + 1);
+
+			for(long e = graph.getOffset(node); e < end; e++) {
+
+				int y = graph.getTarget(e);
+				long newDistance = distance[node] + graph.getWeight(e);
+
+				if(!inTree[y] && distance[y] > newDistance) {
+					
+					if(heap.contains(y)) heap.decreaseKey(y, newDistance);
+					else heap.insert(y, newDistance);
+					
+					distance[y] = newDistance;
+					if(parent != null) parent[y] = node;
 				}
 			}
 		}
@@ -83,6 +297,119 @@ public class ShortestPath {
 		return distance;
 	}
 	
+	/*
+	 * Dijkstra's algorithm on a dynamic graph
+	 */
+	public static long[] dijkstra(DynamicGraph graph, int start) {
+
+		return dijkstra(graph, start, null);
+	}
+	
+	/*
+	 * Dijkstra's algorithm on a dynamic graph. It optionally fills the "parent" array, as the
+	 * methods above. The adjacency lists are read directly from the arrays of the graph.
+	 */
+	public static long[] dijkstra(DynamicGraph graph, int start, int[] parent) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+
+		long[] distance = new long[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		IndexedMinHeap heap = new IndexedMinHeap(n + 1);
+
+		for(int i = 0; i <= n; i++) {
+			distance[i] = Long.MAX_VALUE;
+			inTree[i] = false;
+			if(parent != null) parent[i] = -1;
+		}
+
+		// The distance to the starting vertex from the starting vertex is 0
+
+		distance[start] = 0;
+		heap.insert(start, 0);
+
+		// While there are vertices outside of the shortest paths tree ...
+
+		while(!heap.isEmpty()) {
+
+			int node = heap.extractMin();
+			inTree[node] = true;
+
+			// Iterate outgoing edges of current vertex to update distances
+
+			int[] targets = graph.getTargets(node);
+			int[] weights = graph.getWeights(node);
+			int degree = graph.getDegree(node);
+
+			for(int e = 0; e < degree; e++) {
+
+				int y = targets[e];
+				long newDistance = distance[node] + weights[e];
+
+				if(!inTree[y] && distance[y] > newDistance) {
+					
+					if(heap.contains(y)) heap.decreaseKey(y, newDistance);
+					else heap.insert(y, newDistance);
+					
+					distance[y] = newDistance;
+					if(parent != null) parent[y] = node;
+				}
+			}
+		}
+
+		return distance;
+	}
+	
+	/*
+	 * Bidirectional Dijkstra's algorithm from a source to a target vertex (see PointToPointSearch).
+	 * "reverse" must be the reverse of the graph (or the graph itself if it is undirected). It returns
+	 * the search of the current thread, which holds the distance and the path until the next query of
+	 * this thread.
+	 */
+	public static PointToPointSearch bidirectionalDijkstra(CompactGraph graph, CompactGraph reverse, int source, int target) {
+
+		PointToPointSearch search = searches.get();
+		search.bidirectionalDijkstra(graph, reverse, source, target);
+		return search;
+	}
+	
+	/*
+	 * A* search from a source to a target vertex with an admissible heuristic (see
+	 * PointToPointSearch). It returns the search of the current thread, as the method above.
+	 */
+	public static PointToPointSearch aStar(CompactGraph graph, int source, int target, PointToPointSearch.Heuristic heuristic) {
+
+		PointToPointSearch search = searches.get();
+		search.aStar(graph, source, target, heuristic);
+		return search;
+	}
+	
+	/*
+	 * This method returns the path from the starting vertex of a shortest paths search to the
+	 * given target vertex, using the "parent" array computed by the search. It returns null if
+	 * the target vertex is not reachable.
+	 */
+	public static int[] getPath(int[] parent, int start, int target) {
+
+		if(target != start && parent[target] == -1) return null;
+		
+		int length = 1;
+		
+		for(int v = target; v != start; v = parent[v]) {
+			length++;
+		}
+		
+		int[] path = new int[length];
+		
+		for(int v = target, i = length - 1; i >= 0; v = parent[v], i--) {
+			path[i] = v;
+		}
+		
+		return path;
+	}
+	
 	/*
 	 * Floyd-Warshall's algorithm. It updates the input adjacency matrix with all n^2 distances
 	 * between all pairs of vertices.
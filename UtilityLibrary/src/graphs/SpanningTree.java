@@ -0,0 +1,70 @@
+package graphs;
+
+/**
+ * The result of a minimum spanning tree algorithm, stored as parallel primitive arrays: the i-th
+ * edge of the tree connects vertices from[i] and to[i] and has weight weight[i]. If the input graph
+ * is not connected, the edges form a spanning forest and there are fewer than n-1 of them.
+ * 
+ * @author Mario Cervera
+ */
+public class SpanningTree {
+
+	// Attributes
+
+	private int[] from;
+	private int[] to;
+	private int[] weight;
+	private int numEdges;
+	private long totalWeight;
+
+	// Constructors
+
+	public SpanningTree(int[] from, int[] to, int[] weight, int numEdges) {
+		
+		this.from = from;
+		this.to = to;
+		this.weight = weight;
+		this.numEdges = numEdges;
+		this.totalWeight = 0;
+		
+		for(int i = 0; i < numEdges; i++) {
+			totalWeight += weight[i];
+		}
+	}
+	
+	// Getters
+
+	public int[] getFrom() {
+		return from;
+	}
+
+	public int[] getTo() {
+		return to;
+	}
+
+	public int[] getWeight() {
+		return weight;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	public long getTotalWeight() {
+		return totalWeight;
+	}
+	
+	/*
+	 * This method returns the edges of the tree as Edge objects
+	 */
+	public Edge[] toEdges() {
+		
+		Edge[] edges = new Edge[numEdges];
+		
+		for(int i = 0; i < numEdges; i++) {
+			edges[i] = new Edge(from[i], to[i], weight[i]);
+		}
+		
+		return edges;
+	}
+}
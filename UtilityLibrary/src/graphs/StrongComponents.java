@@ -13,6 +13,15 @@ package graphs;
  * search does not completely traverse the graph, continue with the highest
  * numbered unvisited vertex. Each DFS tree is a SCC.
  * 
+ * This class also provides Tarjan's algorithm, which computes the same components
+ * with a single DFS and without building the reverse graph. Every vertex receives
+ * the order in which it is discovered ("index") and the lowest index reachable from
+ * its DFS subtree through at most one back edge ("low"). A vertex whose low value is
+ * its own index is the root of a SCC, which is formed by the vertices above it in an
+ * auxiliary stack. The DFS is iterative, so it does not overflow the thread stack.
+ * Tarjan's algorithm finds the SCCs in reverse topological order, which is used to
+ * number them and to build the condensation of the graph (the DAG of its SCCs).
+ * 
  * @author Mario Cervera
  */
 public class StrongComponents extends DepthFirstSearch {
@@ -25,6 +34,9 @@ public class StrongComponents extends DepthFirstSearch {
 	
 	private boolean firstPass;
 	
+	private int[] component; // SCC of each vertex (numbered in topological order)
+	private int numComponents;
+	
 	/*
 	 * Kosaraju's algorithm for Strongly Connected Components. This method returns
 	 * an array whose indices represent vertices and whose values represent the 
@@ -78,6 +90,399 @@ public class StrongComponents extends DepthFirstSearch {
 		return leader;
 	}
 	
+	/*
+	 * Kosaraju's algorithm on a graph represented in CSR format. The reverse graph is also built
+	 * in CSR format, which only requires two primitive arrays of the size of the edge set.
+	 */
+	public int[] kosaraju(CompactGraph graph) {
+		
+		int n = graph.getNumVertices();
+		
+		// Initialize variables
+		
+		finishingTime = new int[n+1];
+		leader = new int[n+1];
+		
+		t = 0;
+		l = 0;
+		
+		firstPass = true;
+		
+		// First pass --> Compute finishing time in reverse graph
+		
+		CompactGraph reverseGraph = graph.reverse();
+		initializeSearch(reverseGraph);
+		
+		for(int i = n; i > 0; i--) {
+			if(!discovered[i]) {
+				depthFirstSearch(reverseGraph, i);
+			}
+		}
+		
+		// Second pass --> Compute leaders
+		
+		initializeSearch(graph);
+		firstPass = false;
+		
+		for(int i = n; i > 0; i--) {
+			int vertex = finishingTime[i];
+			if(!discovered[vertex]) {
+				l = vertex;
+				depthFirstSearch(graph, vertex);
+			}
+		}
+		
+		return leader;
+	}
+	
+	/*
+	 * Tarjan's algorithm for Strongly Connected Components. This method returns the
+	 * same kind of "leader" array as Kosaraju's algorithm (the leader of each SCC is
+	 * the root of the SCC in the DFS forest). After this method, getNumComponents and
+	 * getComponent provide the number of SCCs and the SCC of each vertex, numbered from
+	 * 1 in topological order: every edge between two different SCCs goes from a lower
+	 * to a higher number.
+	 */
+	public int[] tarjan(Graph graph) {
+		
+		int n = graph.getNumVertices();
+		EdgeNode[] edges = graph.getEdges();
+		
+		// Initialize variables
+		
+		int[] index = new int[n+1]; // 0 --> not discovered yet
+		int[] low = new int[n+1];
+		int[] sccStack = new int[n+1];
+		int[] callStack = new int[n+1];
+		EdgeNode[] cursor = new EdgeNode[n+1];
+		
+		leader = new int[n+1];
+		component = new int[n+1]; // 0 --> not assigned to a SCC yet
+		numComponents = 0;
+		
+		int counter = 0;
+		int sccTop = 0;
+		
+		for(int root = 1; root <= n; root++) {
+			
+			if(index[root] != 0) continue;
+			
+			int callTop = 0;
+			
+			index[root] = low[root] = ++counter;
+			sccStack[sccTop++] = root;
+			callStack[callTop++] = root;
+			cursor[root] = edges[root];
+			
+			while(callTop > 0) {
+				
+				int v = callStack[callTop-1];
+				EdgeNode adjacentNode = cursor[v];
+				
+				if(adjacentNode != null) {
+					
+					cursor[v] = adjacentNode.getNext();
+					int w = adjacentNode.getY();
+					
+					if(index[w] == 0) { // Tree edge --> "recursive call" on w
+						index[w] = low[w] = ++counter;
+						sccStack[sccTop++] = w;
+						callStack[callTop++] = w;
+						cursor[w] = edges[w];
+					}
+					else if(component[w] == 0 && index[w] < low[v]) { // w is still in the SCC stack
+						low[v] = index[w];
+					}
+				}
+				else { // "Return" from v
+					
+					callTop--;
+					
+					if(low[v] == index[v]) { // v is the root of a SCC
+						
+						numComponents++;
+						int w;
+						
+						do {
+							w = sccStack[--sccTop];
+							component[w] = numComponents;
+							leader[w] = v;
+						} while(w != v);
+					}
+					
+					if(callTop > 0) {
+						int u = callStack[callTop-1];
+						if(low[v] < low[u]) low[u] = low[v];
+					}
+				}
+			}
+		}
+		
+		toTopologicalNumbers(n);
+		
+		return leader;
+	}
+	
+	/*
+	 * Tarjan's algorithm on a graph represented in CSR format
+	 */
+	public int[] tarjan(CompactGraph graph) {
+		
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		
+		// Initialize variables
+		
+		int[] index = new int[n+1]; // 0 --> not discovered yet
+		int[] low = new int[n+1];
+		int[] sccStack = new int[n+1];
+		int[] callStack = new int[n+1];
+		int[] cursor = new int[n+1];
+		
+		leader = new int[n+1];
+		component = new int[n+1]; // 0 --> not assigned to a SCC yet
+		numComponents = 0;
+		
+		int counter = 0;
+		int sccTop = 0;
+		
+		for(int root = 1; root <= n; root++) {
+			
+			if(index[root] != 0) continue;
+			
+			int callTop = 0;
+			
+			index[root] = low[root] = ++counter;
+			sccStack[sccTop++] = root;
+			callStack[callTop++] = root;
+			cursor[root] = offsets[root];
+			
+			while(callTop > 0) {
+				
+				int v = callStack[callTop-1];
+				int e = cursor[v];
+				
+				if(e < offsets[v + 1]) {
+					
+					cursor[v] = e + 1;
+					int w = targets[e];
+					
+					if(index[w] == 0) { // Tree edge --> "recursive call" on w
+						index[w] = low[w] = ++counter;
+						sccStack[sccTop++] = w;
+						callStack[callTop++] = w;
+						cursor[w] = offsets[w];
+					}
+					else if(component[w] == 0 && index[w] < low[v]) { // w is still in the SCC stack
+						low[v] = index[w];
+					}
+				}
+				else { // "Return" from v
+					
+					callTop--;
+					
+					if(low[v] == index[v]) { // v is the root of a SCC
+						
+						numComponents++;
+						int w;
+						
+						do {
+							w = sccStack[--sccTop];
+							component[w] = numComponents;
+							leader[w] = v;
+						} while(w != v);
+					}
+					
+					if(callTop > 0) {
+						int u = callStack[callTop-1];
+						if(low[v] < low[u]) low[u] = low[v];
+					}
+				}
+			}
+		}
+		
+		toTopologicalNumbers(n);
+		
+		return leader;
+	}
+	
+	/*
+	 * Tarjan's algorithm numbers the SCCs in reverse topological order. This method
+	 * reverses the numbering.
+	 */
+	private void toTopologicalNumbers(int n) {
+		
+		for(int i = 1; i <= n; i++) {
+			component[i] = numComponents - component[i] + 1;
+		}
+	}
+	
+	/*
+	 * Returns the number of SCCs found by the last invocation of Tarjan's algorithm
+	 */
+	public int getNumComponents() {
+		return numComponents;
+	}
+	
+	/*
+	 * Returns the SCC of each vertex (from 1 to getNumComponents(), in topological order)
+	 * computed by the last invocation of Tarjan's algorithm
+	 */
+	public int[] getComponent() {
+		return component;
+	}
+	
+	/*
+	 * This method returns the condensation of a graph: a DAG with one vertex per SCC and an
+	 * edge (c,d) if some edge of the graph goes from SCC c to SCC d. Parallel edges are merged,
+	 * and all edges have weight 1. The SCCs are computed with Tarjan's algorithm, so afterwards
+	 * getComponent gives the vertex of the condensation that contains each vertex. Since SCCs
+	 * are numbered in topological order, the vertices 1, 2, ..., c of the condensation are a
+	 * topological order. The adjacency lists are read directly (the graph is not copied).
+	 */
+	public CompactGraph condensation(Graph graph) {
+		
+		tarjan(graph);
+		
+		int n = graph.getNumVertices();
+		EdgeNode[] edges = graph.getEdges();
+		int c = numComponents;
+		
+		int[] start = new int[c+2];
+		int[] members = groupByComponent(n, start);
+		
+		// Count the edges of each SCC, then fill them. "lastSeen" avoids parallel edges.
+		
+		int[] lastSeen = new int[c+1];
+		int[] condensedOffsets = new int[c+2];
+		
+		for(int x = 1; x <= c; x++) {
+			int count = 0;
+			for(int i = start[x]; i < start[x + 1]; i++) {
+				for(EdgeNode node = edges[members[i]]; node != null; node = node.getNext()) {
+					int y = component[node.getY()];
+					if(y != x && lastSeen[y] != x) {
+						lastSeen[y] = x;
+						count++;
+					}
+				}
+			}
+			condensedOffsets[x + 1] = condensedOffsets[x] + count;
+		}
+		
+		int[] condensedTargets = new int[condensedOffsets[c + 1]];
+		int[] condensedWeights = new int[condensedOffsets[c + 1]];
+		
+		for(int i = 0; i <= c; i++) {
+			lastSeen[i] = 0;
+		}
+		
+		for(int x = 1; x <= c; x++) {
+			int pos = condensedOffsets[x];
+			for(int i = start[x]; i < start[x + 1]; i++) {
+				for(EdgeNode node = edges[members[i]]; node != null; node = node.getNext()) {
+					int y = component[node.getY()];
+					if(y != x && lastSeen[y] != x) {
+						lastSeen[y] = x;
+						condensedTargets[pos] = y;
+						condensedWeights[pos] = 1;
+						pos++;
+					}
+				}
+			}
+		}
+		
+		return new CompactGraph(c, condensedOffsets, condensedTargets, condensedWeights);
+	}
+	
+	/*
+	 * Condensation of a graph represented in CSR format
+	 */
+	public CompactGraph condensation(CompactGraph graph) {
+		
+		tarjan(graph);
+		
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int c = numComponents;
+		
+		int[] start = new int[c+2];
+		int[] members = groupByComponent(n, start);
+		
+		// Count the edges of each SCC, then fill them. "lastSeen" avoids parallel edges.
+		
+		int[] lastSeen = new int[c+1];
+		int[] condensedOffsets = new int[c+2];
+		
+		for(int x = 1; x <= c; x++) {
+			int count = 0;
+			for(int i = start[x]; i < start[x + 1]; i++) {
+				int v = members[i];
+				for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int y = component[targets[e]];
+					if(y != x && lastSeen[y] != x) {
+						lastSeen[y] = x;
+						count++;
+					}
+				}
+			}
+			condensedOffsets[x + 1] = condensedOffsets[x] + count;
+		}
+		
+		int[] condensedTargets = new int[condensedOffsets[c + 1]];
+		int[] condensedWeights = new int[condensedOffsets[c + 1]];
+		
+		for(int i = 0; i <= c; i++) {
+			lastSeen[i] = 0;
+		}
+		
+		for(int x = 1; x <= c; x++) {
+			int pos = condensedOffsets[x];
+			for(int i = start[x]; i < start[x + 1]; i++) {
+				int v = members[i];
+				for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int y = component[targets[e]];
+					if(y != x && lastSeen[y] != x) {
+						lastSeen[y] = x;
+						condensedTargets[pos] = y;
+						condensedWeights[pos] = 1;
+						pos++;
+					}
+				}
+			}
+		}
+		
+		return new CompactGraph(c, condensedOffsets, condensedTargets, condensedWeights);
+	}
+	
+	/*
+	 * Groups the vertices by SCC (counting sort). It returns the vertices sorted by SCC, and
+	 * fills "start" (c+2 positions) with the position of the first vertex of each SCC.
+	 */
+	private int[] groupByComponent(int n, int[] start) {
+		
+		int c = numComponents;
+		int[] members = new int[n];
+		
+		for(int v = 1; v <= n; v++) {
+			start[component[v] + 1]++;
+		}
+		for(int i = 1; i <= c; i++) {
+			start[i + 1] += start[i];
+		}
+		
+		int[] next = new int[c+1];
+		System.arraycopy(start, 0, next, 0, c+1);
+		
+		for(int v = 1; v <= n; v++) {
+			members[next[component[v]]++] = v;
+		}
+		
+		return members;
+	}
+	
 	/*
 	 * This method returns the reverse of a given graph. The reverse of a directed graph has
 	 * the same set of vertices but all of the edges are reversed compared to the orientation
@@ -0,0 +1,232 @@
+package graphs;
+
+/**
+ * This class computes topological orders of directed acyclic graphs (DAGs) and, based on them, the
+ * shortest and longest paths of DAGs in O(n+m) time.
+ *
+ * The topological order is computed with Kahn's algorithm: the vertices without incoming edges are
+ * placed first and removed from the graph (decrementing the in-degree of their neighbors), which
+ * leaves new vertices without incoming edges, and so on. If some vertices are never placed, they
+ * belong to (or are reachable from) a cycle, so the graph is not a DAG.
+ *
+ * In a topological order, every edge goes from a vertex to a later one. Therefore, relaxing the
+ * outgoing edges of the vertices in that order computes the final distance of every vertex before
+ * its edges are relaxed, with no priority queue. Unlike Dijkstra's algorithm, this supports negative
+ * weights, and it computes longest paths just by maximizing instead of minimizing. The longest path
+ * of the whole DAG (its "critical path") gives, for instance, the minimum duration of a project whose
+ * tasks are the vertices or edges of the graph.
+ *
+ * @author Mario Cervera
+ */
+public class TopologicalSort {
+
+	/*
+	 * This method returns the vertices of a graph represented by means of adjacency lists in
+	 * topological order, or null if the graph has a cycle
+	 */
+	public static int[] sort(Graph graph) {
+
+		return sort(new CompactGraph(graph));
+	}
+
+	/*
+	 * This method returns the vertices of a graph represented in CSR format in topological order
+	 * (an array of n positions), or null if the graph has a cycle. Among the vertices that are
+	 * available at the same time, the ones that became available first are placed first.
+	 */
+	public static int[] sort(CompactGraph graph) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+
+		int[] inDegree = new int[n + 1];
+		int[] order = new int[n]; // Also used as the queue of available vertices
+		int head = 0;
+		int tail = 0;
+
+		for (int e = 0; e < targets.length; e++) {
+			inDegree[targets[e]]++;
+		}
+
+		// The vertices without incoming edges are available from the beginning
+
+		for (int v = 1; v <= n; v++) {
+			if (inDegree[v] == 0) order[tail++] = v;
+		}
+
+		while (head < tail) {
+
+			int x = order[head++];
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) { // Remove the outgoing edges of x
+				if (--inDegree[targets[e]] == 0) order[tail++] = targets[e];
+			}
+		}
+
+		return (tail == n) ? order : null; // Otherwise, the remaining vertices are in or after a cycle
+	}
+
+	/*
+	 * Shortest paths from a starting vertex of a DAG represented by means of adjacency lists
+	 */
+	public static long[] shortestPaths(Graph graph, int start, int[] parent) {
+
+		return shortestPaths(new CompactGraph(graph), start, parent);
+	}
+
+	/*
+	 * Shortest paths from a starting vertex of a DAG represented in CSR format. Weights can be
+	 * negative. It returns the distances (Long.MAX_VALUE for unreachable vertices) and, if "parent"
+	 * is not null (it must have N+1 positions), it is filled as in ShortestPath.dijkstra. If the
+	 * graph has a cycle, an IllegalArgumentException is thrown.
+	 */
+	public static long[] shortestPaths(CompactGraph graph, int start, int[] parent) {
+
+		return relaxInOrder(graph, start, parent, false);
+	}
+
+	/*
+	 * Longest paths from a starting vertex of a DAG represented by means of adjacency lists
+	 */
+	public static long[] longestPaths(Graph graph, int start, int[] parent) {
+
+		return longestPaths(new CompactGraph(graph), start, parent);
+	}
+
+	/*
+	 * Longest paths from a starting vertex of a DAG represented in CSR format. Same as the method
+	 * shortestPaths, but unreachable vertices have distance Long.MIN_VALUE.
+	 */
+	public static long[] longestPaths(CompactGraph graph, int start, int[] parent) {
+
+		return relaxInOrder(graph, start, parent, true);
+	}
+
+	/*
+	 * Critical path of a DAG represented by means of adjacency lists
+	 */
+	public static int[] criticalPath(Graph graph) {
+
+		return criticalPath(new CompactGraph(graph), null);
+	}
+
+	/*
+	 * This method returns a longest path of a DAG represented in CSR format (its vertices, from
+	 * first to last), or null if the graph has no vertices. If "length" is not null (it must have
+	 * N+1 positions), it is filled with the length of the longest path that ends at every vertex
+	 * (its earliest finishing time, if the weights are durations). Paths can start at any vertex, so
+	 * these lengths are never negative. If the graph has a cycle, an IllegalArgumentException is
+	 * thrown.
+	 */
+	public static int[] criticalPath(CompactGraph graph, long[] length) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+		int[] order = sort(graph);
+
+		if (order == null)
+			throw new IllegalArgumentException("The graph has a cycle");
+
+		if (n == 0) return null;
+
+		if (length == null) length = new long[n + 1];
+
+		int[] parent = new int[n + 1];
+
+		for (int v = 0; v <= n; v++) {
+			length[v] = 0; // Every vertex is the start of an empty path
+			parent[v] = -1;
+		}
+
+		// Relax the edges in topological order
+
+		int last = order[0]; // End of the longest path
+
+		for (int i = 0; i < n; i++) {
+
+			int x = order[i];
+
+			if (length[x] > length[last]) last = x;
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+				long newLength = length[x] + weights[e];
+
+				if (newLength > length[y]) {
+					length[y] = newLength;
+					parent[y] = x;
+				}
+			}
+		}
+
+		// Follow the parents back to the first vertex of the path
+
+		int first = last;
+
+		while (parent[first] != -1) first = parent[first];
+
+		return ShortestPath.getPath(parent, first, last);
+	}
+
+	/*
+	 * This method relaxes the edges of the vertices that are reachable from the starting vertex in
+	 * topological order, either minimizing or maximizing the distances
+	 */
+	private static long[] relaxInOrder(CompactGraph graph, int start, int[] parent, boolean longest) {
+
+		// Initialize variables
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+		int[] order = sort(graph);
+
+		if (order == null)
+			throw new IllegalArgumentException("The graph has a cycle");
+
+		long unreachable = longest ? Long.MIN_VALUE : Long.MAX_VALUE;
+		long[] distance = new long[n + 1];
+
+		for (int v = 0; v <= n; v++) {
+			distance[v] = unreachable;
+			if (parent != null) parent[v] = -1;
+		}
+
+		distance[start] = 0;
+
+		// The vertices before the starting vertex are not reachable from it
+
+		int i = 0;
+
+		while (order[i] != start) i++;
+
+		for (; i < n; i++) {
+
+			int x = order[i];
+
+			if (distance[x] == unreachable) continue;
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+				long newDistance = distance[x] + weights[e];
+
+				if (distance[y] == unreachable || (longest ? newDistance > distance[y] : newDistance < distance[y])) {
+					distance[y] = newDistance;
+					if (parent != null) parent[y] = x;
+				}
+			}
+		}
+
+		return distance;
+	}
+}
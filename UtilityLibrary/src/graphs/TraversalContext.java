@@ -0,0 +1,465 @@
+package graphs;
+
+import java.nio.IntBuffer;
+
+/**
+ * This class provides reentrant Breadth-First Search and Depth-First Search traversals. Unlike the
+ * BreadthFirstSearch class, the state of a traversal (discovered and processed vertices, parents, the
+ * queue or stack) is owned by an instance of this class, and the actions taken on vertices and edges
+ * are supplied as a TraversalVisitor. Therefore, the same graph can be traversed from many threads at
+ * once, as long as each thread uses its own context.
+ *
+ * The arrays of a context are allocated once and reused by every traversal. Instead of clearing them
+ * before each traversal, which would take O(n) time, the context stamps every vertex with the number of
+ * the current traversal (its "epoch"). A vertex is discovered if its stamp is the current epoch, and
+ * processed if its stamp is the current epoch plus one, so starting a new traversal only requires to
+ * increment the epoch. The arrays are only cleared when the epoch overflows.
+ *
+ * @author Mario Cervera
+ */
+public class TraversalContext {
+
+	private int[] stamp; // Discovered: stamp == epoch; processed: stamp == epoch + 1
+	private int[] parent; // Only meaningful for discovered vertices
+	private int[] queue; // Queue (Breadth-First Search) or stack (Depth-First Search)
+	private int[] positionCursor; // Next edge to explore of each vertex in the stack (CSR format)
+	private EdgeNode[] edgeCursor; // Next edge to explore of each vertex in the stack
+
+	private int epoch;
+	private boolean finish; // Enables premature search termination
+
+	/*
+	 * Constructor. The context grows automatically if it is used with a graph with more vertices.
+	 */
+	public TraversalContext(int numVertices) {
+
+		this.stamp = new int[numVertices + 1]; // Vertices are numbered from 1 to N
+		this.parent = new int[numVertices + 1];
+		this.queue = new int[numVertices + 1];
+		this.epoch = 2; // No vertex has been discovered yet
+	}
+
+	/*
+	 * Returns true if the vertex was discovered by the last traversal
+	 */
+	public boolean isDiscovered(int vertex) {
+		return vertex < stamp.length && stamp[vertex] >= epoch;
+	}
+
+	/*
+	 * Returns true if the vertex was processed by the last traversal
+	 */
+	public boolean isProcessed(int vertex) {
+		return vertex < stamp.length && stamp[vertex] == epoch + 1;
+	}
+
+	/*
+	 * Returns the parent of a vertex in the tree of the last traversal (-1 for the starting vertex
+	 * and for the vertices that were not discovered)
+	 */
+	public int getParent(int vertex) {
+		return isDiscovered(vertex) ? parent[vertex] : -1;
+	}
+
+	/*
+	 * Stops the current traversal. It is intended to be invoked by the visitor, which receives the
+	 * context in every action.
+	 */
+	public void finish() {
+		finish = true;
+	}
+
+	/*
+	 * Breadth-First Search from a given starting vertex (same behavior as BreadthFirstSearch.bfs)
+	 */
+	public void bfs(Graph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		EdgeNode[] edges = graph.getEdges();
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			for (EdgeNode edge = edges[vertex]; edge != null; edge = edge.getNext()) { // Iterate adjacent vertices
+
+				int y = edge.getY();
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Breadth-First Search on a graph represented in CSR format
+	 */
+	public void bfs(CompactGraph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) { // Iterate adjacent vertices
+
+				int y = targets[e];
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Breadth-First Search on a graph stored outside of the Java heap. The adjacency lists are
+	 * read directly from the buffers, with 64-bit edge positions.
+	 */
+	public void bfs(OffHeapGraph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			long end = graph.getOffset(vertex + 1);
+
+			for (long e = graph.getOffset(vertex); e < end; e++) { // Iterate adjacent vertices
+
+				int y = graph.getTarget(e);
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Breadth-First Search on a graph mapped from a file. The adjacency lists are read directly
+	 * from the mapped buffers.
+	 */
+	public void bfs(MappedGraph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		IntBuffer offsets = graph.getOffsets();
+		IntBuffer targets = graph.getTargets();
+
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			int end = offsets.get(vertex + 1);
+
+			for (int e = offsets.get(vertex); e < end; e++) { // Iterate adjacent vertices
+
+				int y = targets.get(e);
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Breadth-First Search on a compressed graph. The adjacency lists are decoded on the fly with a
+	 * single cursor, so the neighbors of every vertex are visited in increasing order.
+	 */
+	public void bfs(CompressedGraph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		CompressedGraph.Cursor cursor = graph.cursor();
+
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			for (cursor.reset(vertex); cursor.hasNext(); ) { // Iterate adjacent vertices
+
+				int y = cursor.next();
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Breadth-First Search on a dynamic graph. The adjacency lists are read directly from the
+	 * arrays of the graph.
+	 */
+	public void bfs(DynamicGraph graph, int start, TraversalVisitor visitor) {
+
+		initializeSearch(graph.getNumVertices());
+
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		discover(start, -1);
+
+		while (head < tail && !finish) {
+
+			int vertex = queue[head++];
+			visitor.processVertexBefore(this, vertex);
+
+			if (finish) return; // The visitor stopped the search
+
+			stamp[vertex] = epoch + 1; // Processed
+
+			int[] targets = graph.getTargets(vertex);
+			int degree = graph.getDegree(vertex);
+
+			for (int e = 0; e < degree; e++) { // Iterate adjacent vertices
+
+				int y = targets[e];
+
+				if (stamp[y] != epoch + 1)
+					visitor.processEdge(this, vertex, y);
+
+				if (stamp[y] < epoch) { // Not discovered
+					discover(y, vertex);
+					queue[tail++] = y;
+				}
+
+				if (finish) return; // The visitor stopped the search (y is discovered)
+			}
+			visitor.processVertexAfter(this, vertex);
+		}
+	}
+
+	/*
+	 * Depth-First Search from a given starting vertex (same behavior as DepthFirstSearch.dfs)
+	 */
+	public void dfs(Graph graph, int start, TraversalVisitor visitor) {
+
+		int n = graph.getNumVertices();
+		initializeSearch(n);
+
+		if (edgeCursor == null || edgeCursor.length <= n) edgeCursor = new EdgeNode[n + 1];
+
+		EdgeNode[] edges = graph.getEdges();
+		int top = 0;
+
+		discover(start, -1);
+		visitor.processVertexBefore(this, start);
+		edgeCursor[start] = edges[start];
+		queue[top++] = start;
+
+		while (top > 0 && !finish) {
+
+			int x = queue[top - 1];
+			EdgeNode adjacentNode = edgeCursor[x];
+
+			if (adjacentNode == null) { // All adjacent vertices have been explored
+				top--;
+				visitor.processVertexAfter(this, x);
+				stamp[x] = epoch + 1; // Processed
+				continue;
+			}
+
+			edgeCursor[x] = adjacentNode.getNext();
+
+			int y = adjacentNode.getY();
+
+			if (stamp[y] < epoch) { // Not discovered
+				parent[y] = x;
+				visitor.processEdge(this, x, y);
+
+				if (finish) return;
+
+				stamp[y] = epoch; // Discovered
+				visitor.processVertexBefore(this, y);
+				edgeCursor[y] = edges[y];
+				queue[top++] = y;
+			}
+			else if (stamp[y] != epoch + 1 && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				visitor.processEdge(this, x, y);
+			}
+		}
+	}
+
+	/*
+	 * Depth-First Search on a graph represented in CSR format
+	 */
+	public void dfs(CompactGraph graph, int start, TraversalVisitor visitor) {
+
+		int n = graph.getNumVertices();
+		initializeSearch(n);
+
+		if (positionCursor == null || positionCursor.length <= n) positionCursor = new int[n + 1];
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int top = 0;
+
+		discover(start, -1);
+		visitor.processVertexBefore(this, start);
+		positionCursor[start] = offsets[start];
+		queue[top++] = start;
+
+		while (top > 0 && !finish) {
+
+			int x = queue[top - 1];
+			int e = positionCursor[x];
+
+			if (e == offsets[x + 1]) { // All adjacent vertices have been explored
+				top--;
+				visitor.processVertexAfter(this, x);
+				stamp[x] = epoch + 1; // Processed
+				continue;
+			}
+
+			positionCursor[x] = e + 1;
+
+			int y = targets[e];
+
+			if (stamp[y] < epoch) { // Not discovered
+				parent[y] = x;
+				visitor.processEdge(this, x, y);
+
+				if (finish) return;
+
+				stamp[y] = epoch; // Discovered
+				visitor.processVertexBefore(this, y);
+				positionCursor[y] = offsets[y];
+				queue[top++] = y;
+			}
+			else if (stamp[y] != epoch + 1 && parent[x] != y) {
+				// If this condition is true, a cycle has been found
+				visitor.processEdge(this, x, y);
+			}
+		}
+	}
+
+	/*
+	 * This method starts a new traversal: it moves to the next epoch (clearing the stamps only when
+	 * the epoch overflows) and grows the arrays if the graph has more vertices than the context.
+	 */
+	private void initializeSearch(int n) {
+
+		if (stamp.length <= n) {
+			stamp = new int[n + 1];
+			parent = new int[n + 1];
+			queue = new int[n + 1];
+			epoch = 0;
+		}
+
+		if (epoch >= Integer.MAX_VALUE - 2) {
+			for (int i = 0; i < stamp.length; i++) {
+				stamp[i] = 0;
+			}
+			epoch = 0;
+		}
+
+		epoch += 2; // Stamps lower than the new epoch mean "not discovered"
+		finish = false;
+	}
+
+	private void discover(int vertex, int parentVertex) {
+
+		stamp[vertex] = epoch;
+		parent[vertex] = parentVertex;
+	}
+}
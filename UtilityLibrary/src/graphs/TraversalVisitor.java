@@ -0,0 +1,31 @@
+package graphs;
+
+/**
+ * The actions that a graph traversal (see TraversalContext) performs on vertices and edges. They are
+ * the same stubs as those of the BreadthFirstSearch and DepthFirstSearch classes, but they receive
+ * primitive ints and can be supplied by the caller. All of them do nothing by default, so a visitor
+ * only needs to implement the ones that it uses. Every action receives the context that runs the
+ * traversal, so a visitor can stop it with context.finish().
+ * 
+ * @author Mario Cervera
+ */
+public interface TraversalVisitor {
+
+	/*
+	 * Actions that must be taken when a vertex starts being processed (before its outgoing edges)
+	 */
+	default void processVertexBefore(TraversalContext context, int vertex) {
+	}
+
+	/*
+	 * Actions that must be taken when an edge is processed
+	 */
+	default void processEdge(TraversalContext context, int x, int y) {
+	}
+
+	/*
+	 * Actions that must be taken after all the outgoing edges of a vertex have been processed
+	 */
+	default void processVertexAfter(TraversalContext context, int vertex) {
+	}
+}
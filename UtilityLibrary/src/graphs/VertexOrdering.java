@@ -0,0 +1,482 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * This class computes new orderings (permutations) of the vertices of a graph that improve the locality
+ * of its memory accesses. When the identifiers of the vertices are arbitrary, the neighbors of a vertex
+ * are scattered across the arrays of the graph (and of the algorithms: distances, parents...), so
+ * traversals take a cache miss on almost every edge. Renumbering the vertices so that vertices that are
+ * accessed together get close identifiers reduces these misses. The following orderings are provided:
+ *
+ * Degree sort: vertices sorted by decreasing degree, so the most accessed vertices (the hubs) share
+ * a few cache lines.
+ *
+ * BFS order: vertices numbered in the order in which a Breadth-First Search discovers them, so the
+ * neighbors of a vertex tend to be consecutive.
+ *
+ * Reverse Cuthill-McKee: a Breadth-First Search that starts at a vertex of minimum degree and visits
+ * the neighbors of each vertex by increasing degree, reversed at the end. It reduces the bandwidth of
+ * the adjacency matrix (the largest difference between two adjacent vertices).
+ *
+ * Gorder (Wei, Yu, Lu and Lin, 2016): a greedy ordering that places next the vertex that shares the
+ * most neighbors (and edges) with the last "window" placed vertices. The score of every vertex is kept
+ * in a "unit heap" (buckets of vertices with the same score, since scores only change by one), and
+ * vertices whose degree is larger than the square root of n are not expanded to find common neighbors,
+ * since they would increment the score of too many vertices. Gorder usually produces the best locality,
+ * but it takes time proportional to the sum of the squared degrees, much more than the other orderings.
+ *
+ * A permutation is an array "perm" where perm[v] is the new identifier of vertex v (both numbered from
+ * 1 to n; position 0 is not used). It can be applied to a graph with the relabel methods, and the results
+ * of an algorithm on the relabeled graph can be translated back to the original vertices with the
+ * mapBack methods. The orderings are designed for undirected graphs; on directed graphs, they only
+ * consider the outgoing edges.
+ *
+ * @author Mario Cervera
+ */
+public class VertexOrdering {
+
+	public static final int DEFAULT_WINDOW = 5; // Window of Gorder
+
+	/*
+	 * This method returns the permutation that sorts the vertices by decreasing degree. Vertices
+	 * with the same degree keep their relative order.
+	 */
+	public static int[] degreeSort(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] byDegree = sortByDegree(graph);
+		int[] perm = new int[n + 1];
+		int next = 1;
+
+		// Traverse the groups of vertices with the same degree, from the largest degree
+
+		for (int j = n; j > 0; ) {
+
+			int i = j - 1;
+			int degree = graph.getDegree(byDegree[i]);
+
+			while (i > 0 && graph.getDegree(byDegree[i - 1]) == degree) i--;
+
+			for (int k = i; k < j; k++) {
+				perm[byDegree[k]] = next++;
+			}
+
+			j = i;
+		}
+
+		return perm;
+	}
+
+	/*
+	 * This method returns the order in which a Breadth-First Search discovers the vertices. The
+	 * search starts at a given vertex; the vertices that are not reachable from it are visited by
+	 * further searches, from the unvisited vertex with the smallest identifier.
+	 */
+	public static int[] bfsOrder(CompactGraph graph, int start) {
+
+		int n = graph.getNumVertices();
+		int[] order = new int[n]; // Also used as the queue of the searches
+		int[] perm = new int[n + 1];
+		int size = 0;
+
+		int next = 1; // Candidate start of the next search
+
+		while (size < n) {
+
+			int s = start;
+
+			if (s < 1 || perm[s] != 0) {
+				while (perm[next] != 0) next++;
+				s = next;
+			}
+
+			size = bfs(graph, s, order, size, perm, false);
+		}
+
+		return perm;
+	}
+
+	/*
+	 * This method returns the Reverse Cuthill-McKee ordering. Every connected component is searched
+	 * from one of its vertices of minimum degree.
+	 */
+	public static int[] reverseCuthillMcKee(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int[] byDegree = sortByDegree(graph);
+		int[] order = new int[n];
+		int[] perm = new int[n + 1];
+		int size = 0;
+
+		for (int i = 0; i < n; i++) {
+			if (perm[byDegree[i]] == 0) {
+				size = bfs(graph, byDegree[i], order, size, perm, true);
+			}
+		}
+
+		// Reverse the order
+
+		for (int i = 0; i < n; i++) {
+			perm[order[i]] = n - i;
+		}
+
+		return perm;
+	}
+
+	/*
+	 * Gorder with the default window
+	 */
+	public static int[] gorder(CompactGraph graph) {
+
+		return gorder(graph, DEFAULT_WINDOW);
+	}
+
+	/*
+	 * This method returns the Gorder ordering. The score of a vertex v is the number of vertices u
+	 * among the last "window" placed vertices such that (u,v) is an edge, plus the number of common
+	 * neighbors of u and v.
+	 */
+	public static int[] gorder(CompactGraph graph, int window) {
+
+		if (window < 1)
+			throw new IllegalArgumentException("The window must be positive: " + window);
+
+		int n = graph.getNumVertices();
+		int[] perm = new int[n + 1];
+
+		if (n == 0) return perm;
+
+		int hubDegree = (int) Math.sqrt(n); // Larger degrees are not expanded
+		int[] order = new int[n];
+		UnitHeap heap = new UnitHeap(n);
+
+		// Start with the vertex of maximum degree
+
+		int first = 1;
+
+		for (int v = 2; v <= n; v++) {
+			if (graph.getDegree(v) > graph.getDegree(first)) first = v;
+		}
+
+		for (int i = 0; i < n; i++) {
+
+			int v = (i == 0) ? first : heap.extractMax();
+
+			if (i == 0) heap.remove(first);
+
+			order[i] = v;
+			perm[v] = i + 1;
+
+			// v enters the window and the vertex placed "window" steps before leaves it
+
+			updateScores(graph, v, 1, hubDegree, heap);
+
+			if (i >= window) {
+				updateScores(graph, order[i - window], -1, hubDegree, heap);
+			}
+		}
+
+		return perm;
+	}
+
+	/*
+	 * This method returns a copy of a graph in which every vertex v has been renamed perm[v]
+	 */
+	public static Graph relabel(Graph graph, int[] perm) {
+
+		return relabel(new CompactGraph(graph), perm).toGraph();
+	}
+
+	/*
+	 * This method returns a copy of a graph in CSR format in which every vertex v has been renamed
+	 * perm[v]. The adjacency list of every vertex is sorted by (new) identifier, so that the
+	 * neighbors are also accessed in increasing order of memory address.
+	 */
+	public static CompactGraph relabel(CompactGraph graph, int[] perm) {
+
+		int n = graph.getNumVertices();
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int[] weights = graph.getWeights();
+		int[] inverse = inverse(perm);
+
+		int[] newOffsets = new int[n + 2];
+		int[] newTargets = new int[targets.length];
+		int[] newWeights = new int[weights.length];
+
+		for (int v = 1; v <= n; v++) {
+			newOffsets[v + 1] = newOffsets[v] + graph.getDegree(inverse[v]);
+		}
+
+		long[] keys = new long[0];
+
+		for (int v = 1; v <= n; v++) {
+
+			int old = inverse[v];
+			int degree = graph.getDegree(old);
+
+			// Sort the adjacency list: each key packs the new target (high 32 bits) and the weight
+
+			if (keys.length < degree) keys = new long[Math.max(degree, 2 * keys.length)];
+
+			for (int k = 0; k < degree; k++) {
+				int e = offsets[old] + k;
+				keys[k] = ((long) perm[targets[e]] << 32) | (weights[e] & 0xFFFFFFFFL);
+			}
+
+			Arrays.sort(keys, 0, degree);
+
+			for (int k = 0; k < degree; k++) {
+				newTargets[newOffsets[v] + k] = (int) (keys[k] >>> 32);
+				newWeights[newOffsets[v] + k] = (int) keys[k];
+			}
+		}
+
+		return new CompactGraph(n, newOffsets, newTargets, newWeights);
+	}
+
+	/*
+	 * This method returns the inverse of a permutation: inverse[perm[v]] = v
+	 */
+	public static int[] inverse(int[] perm) {
+
+		int[] inverse = new int[perm.length];
+
+		for (int v = 1; v < perm.length; v++) {
+
+			if (perm[v] < 1 || perm[v] >= perm.length || inverse[perm[v]] != 0)
+				throw new IllegalArgumentException("Not a permutation of 1.." + (perm.length - 1));
+
+			inverse[perm[v]] = v;
+		}
+
+		return inverse;
+	}
+
+	/*
+	 * This method translates the values computed for the vertices of a relabeled graph (such as
+	 * distances) to the original vertices: result[v] = values[perm[v]]
+	 */
+	public static long[] mapBack(long[] values, int[] perm) {
+
+		long[] result = new long[values.length];
+
+		for (int v = 1; v < perm.length; v++) {
+			result[v] = values[perm[v]];
+		}
+
+		return result;
+	}
+
+	/*
+	 * Same as the method above, for int values (such as component numbers)
+	 */
+	public static int[] mapBack(int[] values, int[] perm) {
+
+		int[] result = new int[values.length];
+
+		for (int v = 1; v < perm.length; v++) {
+			result[v] = values[perm[v]];
+		}
+
+		return result;
+	}
+
+	/*
+	 * This method translates values that are themselves vertices of the relabeled graph (such as
+	 * parents) to the original vertices. Values that are not vertices (lower than 1) are kept.
+	 */
+	public static int[] mapBackVertices(int[] values, int[] perm) {
+
+		int[] inverse = inverse(perm);
+		int[] result = new int[values.length];
+
+		for (int v = 1; v < perm.length; v++) {
+			int value = values[perm[v]];
+			result[v] = value >= 1 ? inverse[value] : value;
+		}
+
+		return result;
+	}
+
+	/*
+	 * Breadth-First Search that appends the vertices that it discovers to "order" (from position
+	 * "size") and numbers them in "perm". If "byDegree" is true, the neighbors of every vertex are
+	 * visited by increasing degree. It returns the new size of the order.
+	 */
+	private static int bfs(CompactGraph graph, int start, int[] order, int size, int[] perm, boolean byDegree) {
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+		int head = size;
+
+		order[size++] = start;
+		perm[start] = size;
+
+		while (head < size) {
+
+			int x = order[head++];
+			int first = size;
+
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+
+				int y = targets[e];
+
+				if (perm[y] == 0) {
+					order[size++] = y;
+					perm[y] = size;
+				}
+			}
+
+			if (byDegree) { // Insertion sort of the new vertices by degree (lists are short)
+
+				for (int i = first + 1; i < size; i++) {
+
+					int y = order[i];
+					int j = i - 1;
+
+					while (j >= first && graph.getDegree(order[j]) > graph.getDegree(y)) {
+						order[j + 1] = order[j];
+						j--;
+					}
+					order[j + 1] = y;
+				}
+
+				for (int i = first; i < size; i++) {
+					perm[order[i]] = i + 1;
+				}
+			}
+		}
+
+		return size;
+	}
+
+	/*
+	 * Returns the vertices sorted by increasing degree (counting sort, stable)
+	 */
+	private static int[] sortByDegree(CompactGraph graph) {
+
+		int n = graph.getNumVertices();
+		int maxDegree = 0;
+
+		for (int v = 1; v <= n; v++) {
+			maxDegree = Math.max(maxDegree, graph.getDegree(v));
+		}
+
+		int[] count = new int[maxDegree + 2];
+
+		for (int v = 1; v <= n; v++) {
+			count[graph.getDegree(v) + 1]++;
+		}
+
+		for (int d = 0; d <= maxDegree; d++) {
+			count[d + 1] += count[d];
+		}
+
+		int[] sorted = new int[n];
+
+		for (int v = 1; v <= n; v++) {
+			sorted[count[graph.getDegree(v)]++] = v;
+		}
+
+		return sorted;
+	}
+
+	/*
+	 * This method adds "delta" to the score of the unplaced neighbors of v and of the unplaced
+	 * neighbors of its (non-hub) neighbors
+	 */
+	private static void updateScores(CompactGraph graph, int v, int delta, int hubDegree, UnitHeap heap) {
+
+		int[] offsets = graph.getOffsets();
+		int[] targets = graph.getTargets();
+
+		for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+
+			int u = targets[e];
+
+			heap.add(u, delta); // Edge between v and u
+
+			if (offsets[u + 1] - offsets[u] > hubDegree) continue;
+
+			for (int f = offsets[u]; f < offsets[u + 1]; f++) {
+				if (targets[f] != v) heap.add(targets[f], delta); // Common neighbor u
+			}
+		}
+	}
+
+	/*
+	 * A max-priority queue of the vertices that have not been placed yet, whose priorities only change
+	 * by small increments. Vertices with the same score are kept in a doubly linked list (a bucket),
+	 * so changing a score and extracting the maximum take constant (amortized) time.
+	 */
+	private static class UnitHeap {
+
+		private int[] score;
+		private int[] prev;
+		private int[] next;
+		private int[] head; // First vertex of each bucket (0 if empty)
+		private boolean[] removed;
+		private int maxScore;
+
+		UnitHeap(int n) {
+
+			score = new int[n + 1];
+			prev = new int[n + 1];
+			next = new int[n + 1];
+			head = new int[16];
+			removed = new boolean[n + 1];
+
+			for (int v = n; v >= 1; v--) { // Bucket 0 in increasing order of identifier
+				link(v);
+			}
+		}
+
+		void add(int v, int delta) {
+
+			if (removed[v]) return;
+
+			unlink(v);
+			score[v] += delta;
+			link(v);
+
+			if (score[v] > maxScore) maxScore = score[v];
+		}
+
+		int extractMax() {
+
+			while (head[maxScore] == 0) maxScore--;
+
+			int v = head[maxScore];
+			remove(v);
+			return v;
+		}
+
+		void remove(int v) {
+
+			unlink(v);
+			removed[v] = true;
+		}
+
+		private void link(int v) {
+
+			int s = score[v];
+
+			if (s >= head.length) head = Arrays.copyOf(head, Math.max(s + 1, 2 * head.length));
+
+			prev[v] = 0;
+			next[v] = head[s];
+			if (head[s] != 0) prev[head[s]] = v;
+			head[s] = v;
+		}
+
+		private void unlink(int v) {
+
+			if (prev[v] != 0) next[prev[v]] = next[v];
+			else head[score[v]] = next[v];
+
+			if (next[v] != 0) prev[next[v]] = prev[v];
+		}
+	}
+}
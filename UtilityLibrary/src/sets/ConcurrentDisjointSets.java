@@ -0,0 +1,125 @@
+package sets;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class implements a lock-free union-find (disjoint-set) data structure for the integers 0 to n-1,
+ * which can be shared by many threads. As in the DisjointSets class, the parent pointers are stored in
+ * a primitive array (an AtomicIntegerArray), but they are only changed with compare-and-set operations.
+ *
+ * The union operation links the root with the larger index below the root with the smaller index (a
+ * total order, so concurrent unions never create cycles). If another thread changes one of the roots
+ * first, the compare-and-set fails and the operation is retried with the new roots. The find operation
+ * implements path halving; a failed compare-and-set there is harmless, since it only means that another
+ * thread has already shortened the path. Unlike DisjointSets, the number and size of the sets are not
+ * maintained, because they cannot be updated atomically together with the parent pointers.
+ *
+ * @author Mario Cervera
+ */
+public class ConcurrentDisjointSets {
+
+	/**
+	 * Parent pointers
+	 */
+	private AtomicIntegerArray parent;
+
+	/** Constructors*/
+
+	public ConcurrentDisjointSets(int n) {
+
+		this.parent = new AtomicIntegerArray(n);
+
+		for(int i = 0; i < n; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	/** Getter methods*/
+
+	public int size() {
+		return parent.length();
+	}
+
+	/*
+	 * Returns the parent pointer of an element (the element itself for the roots)
+	 */
+	public int getParent(int element) {
+		return parent.get(element);
+	}
+
+	/** Operations*/
+
+	/*
+	 * This method returns the representative of the set that contains a given element: the smallest
+	 * element of the set, once all the unions have finished. This method implements the "path halving"
+	 * technique: every visited node is linked to its grandparent.
+	 */
+	public int find(int element) {
+
+		while(true) {
+
+			int p = parent.get(element);
+			if(p == element) return element;
+
+			int grandparent = parent.get(p);
+			if(grandparent == p) return p;
+
+			parent.compareAndSet(element, p, grandparent);
+			element = grandparent;
+		}
+	}
+
+	/*
+	 * This method joins the sets of two elements. Returns true if this invocation joined the two sets;
+	 * false if they were already the same set.
+	 */
+	public boolean union(int element1, int element2) {
+
+		while(true) {
+
+			int root1 = find(element1);
+			int root2 = find(element2);
+
+			if(root1 == root2) { //Already in the same set
+				return false;
+			}
+
+			if(root1 < root2) { //Link the larger root below the smaller one
+				int aux = root1;
+				root1 = root2;
+				root2 = aux;
+			}
+
+			if(parent.compareAndSet(root1, root1, root2)) {
+				return true;
+			}
+		}
+	}
+
+	public boolean sameSet(int element1, int element2) {
+
+		while(true) {
+
+			int root1 = find(element1);
+			int root2 = find(element2);
+
+			if(root1 == root2) return true;
+
+			if(parent.get(root1) == root1) return false; //root1 was still a root, so the sets were different
+		}
+	}
+
+	/*
+	 * This method links an element directly to its root. Once all the unions have finished,
+	 * compressing every element leaves all the trees with depth 1.
+	 */
+	public int compress(int element) {
+
+		int root = find(element);
+
+		if(parent.get(element) != root) {
+			parent.set(element, root);
+		}
+		return root;
+	}
+}
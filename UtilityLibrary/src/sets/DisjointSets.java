@@ -0,0 +1,107 @@
+package sets;
+
+/**
+ * This class implements a union-find (disjoint-set) data structure for the integers 0 to n-1. Unlike
+ * the generic UnionFind class, the parent pointers and the sizes of the subtrees are stored in primitive
+ * arrays, so no objects are allocated after construction. This makes it suitable for graph algorithms
+ * (such as Kruskal's algorithm or graph contraction) on large graphs, where the elements are vertices.
+ * 
+ * This class implements union by size and path halving (a one-pass variant of path compression);
+ * thus, it guarantees nearly constant time (amortized) for all of its supported operations.
+ * 
+ * @author Mario Cervera
+ */
+public class DisjointSets {
+
+	/**
+	 * Parent pointers
+	 */
+	private int[] parent;
+	
+	/**
+	 * Size of each subtree (only meaningful for the roots)
+	 */
+	private int[] size;
+	
+	/**
+	 * Number of disjoint sets
+	 */
+	private int count;
+	
+	/** Constructors*/
+	
+	public DisjointSets(int n) {
+		
+		this.parent = new int[n];
+		this.size = new int[n];
+		
+		reset();
+	}
+	
+	/** Getter methods*/
+	
+	public int getCount() {
+		return count;
+	}
+	
+	public int getSize(int element) {
+		return size[find(element)];
+	}
+	
+	/** Operations*/
+	
+	/*
+	 * This method turns every element into a singleton set again
+	 */
+	public void reset() {
+		
+		for(int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		count = parent.length;
+	}
+	
+	/*
+	 * This method returns the representative of the set that contains a given element. This method
+	 * implements the "path halving" technique: every visited node is linked to its grandparent.
+	 */
+	public int find(int element) {
+		
+		while(parent[element] != element) {
+			parent[element] = parent[parent[element]];
+			element = parent[element];
+		}
+		return element;
+	}
+	
+	/*
+	 * This method joins the sets of two elements. It implements the "union by size" technique.
+	 * Returns true if the two elements were in different sets; false otherwise.
+	 */
+	public boolean union(int element1, int element2) {
+		
+		int root1 = find(element1);
+		int root2 = find(element2);
+		
+		if(root1 == root2) { //Already in the same set
+			return false;
+		}
+		
+		if(size[root1] < size[root2]) {
+			parent[root1] = root2;
+			size[root2] += size[root1];
+		}
+		else {
+			parent[root2] = root1;
+			size[root1] += size[root2];
+		}
+		
+		count--;
+		return true;
+	}
+	
+	public boolean sameSet(int element1, int element2) {
+		return find(element1) == find(element2);
+	}
+}